@@ -1,6 +1,9 @@
 package com.ms.email.configs;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,11 +16,29 @@ public class RabbitMQConfig {
     @Value("${broker.queue.email.name}")
     private String queue;
 
+    @Value("${broker.queue.user-events.name}")
+    private String userEventsQueue;
+
+    @Value("${broker.exchange.user-events.name}")
+    private String userEventsExchange;
+
     @Bean
     public Queue queue(){
         return new Queue(queue, true);
     }
     @Bean
+    public Queue userEventsQueue(){
+        return new Queue(userEventsQueue, true);
+    }
+    @Bean
+    public FanoutExchange userEventsExchange(){
+        return new FanoutExchange(userEventsExchange, true, false);
+    }
+    @Bean
+    public Binding userEventsBinding(){
+        return BindingBuilder.bind(userEventsQueue()).to(userEventsExchange());
+    }
+    @Bean
     public Jackson2JsonMessageConverter messageConverter(){
         ObjectMapper objectMapper = new ObjectMapper();
         return new Jackson2JsonMessageConverter(objectMapper);
@@ -0,0 +1,110 @@
+package com.ms.email.consumer;
+
+import java.time.Duration;
+
+/**
+ * Additive-increase/multiplicative-decrease window for the email listener, fed with the outcome
+ * of every SMTP send. Samples are collected per window; a window whose average send time is above
+ * the target, or whose error rate is above the limit, halves (by {@code decreaseFactor}) both the
+ * number of consumers and their prefetch. A healthy window adds one consumer and sizes the
+ * prefetch so that it covers {@code prefetchCoverage} of sending at the observed latency.
+ */
+public class AimdWindow {
+
+    public enum Adjustment {
+        NONE, INCREASE, LATENCY, ERRORS
+    }
+
+    private static final long NO_WINDOW = Long.MIN_VALUE;
+
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final int minPrefetch;
+    private final int maxPrefetch;
+    private final long targetLatencyNanos;
+    private final double maxErrorRate;
+    private final double decreaseFactor;
+    private final long prefetchCoverageNanos;
+    private final long sampleWindowNanos;
+    private final int minWindowSamples;
+
+    private volatile int concurrency;
+    private volatile int prefetch;
+
+    private long windowStartNanos = NO_WINDOW;
+    private long windowLatencySumNanos;
+    private int windowSamples;
+    private int windowErrors;
+
+    public AimdWindow(int initialConcurrency, int minConcurrency, int maxConcurrency,
+                      int initialPrefetch, int minPrefetch, int maxPrefetch,
+                      Duration targetLatency, double maxErrorRate, double decreaseFactor,
+                      Duration prefetchCoverage, Duration sampleWindow, int minWindowSamples){
+        if (minConcurrency < 1 || maxConcurrency < minConcurrency || minPrefetch < 1 || maxPrefetch < minPrefetch) {
+            throw new IllegalArgumentException("Invalid flow control bounds");
+        }
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.minPrefetch = minPrefetch;
+        this.maxPrefetch = maxPrefetch;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.maxErrorRate = maxErrorRate;
+        this.decreaseFactor = decreaseFactor;
+        this.prefetchCoverageNanos = prefetchCoverage.toNanos();
+        this.sampleWindowNanos = sampleWindow.toNanos();
+        this.minWindowSamples = minWindowSamples;
+        this.concurrency = clamp(initialConcurrency, minConcurrency, maxConcurrency);
+        this.prefetch = clamp(initialPrefetch, minPrefetch, maxPrefetch);
+    }
+
+    public int getConcurrency(){
+        return concurrency;
+    }
+
+    public int getPrefetch(){
+        return prefetch;
+    }
+
+    /**
+     * Messages the listener may hold at once: unacknowledged deliveries over all consumers.
+     */
+    public int getWindow(){
+        return concurrency * prefetch;
+    }
+
+    public synchronized Adjustment record(long latencyNanos, boolean error, long nowNanos){
+        if (windowStartNanos == NO_WINDOW) {
+            windowStartNanos = nowNanos;
+        }
+        windowLatencySumNanos += latencyNanos;
+        windowSamples++;
+        if (error) {
+            windowErrors++;
+        }
+        if (windowSamples < minWindowSamples || nowNanos - windowStartNanos < sampleWindowNanos) {
+            return Adjustment.NONE;
+        }
+        Adjustment adjustment = update(windowLatencySumNanos / windowSamples, (double) windowErrors / windowSamples);
+        windowStartNanos = nowNanos;
+        windowLatencySumNanos = 0;
+        windowSamples = 0;
+        windowErrors = 0;
+        return adjustment;
+    }
+
+    private Adjustment update(long averageLatencyNanos, double errorRate){
+        if (errorRate > maxErrorRate || averageLatencyNanos > targetLatencyNanos) {
+            concurrency = Math.max(minConcurrency, (int) (concurrency * decreaseFactor));
+            prefetch = Math.max(minPrefetch, (int) (prefetch * decreaseFactor));
+            return errorRate > maxErrorRate ? Adjustment.ERRORS : Adjustment.LATENCY;
+        }
+        concurrency = Math.min(maxConcurrency, concurrency + 1);
+        long covered = prefetchCoverageNanos / Math.max(1, averageLatencyNanos);
+        prefetch = clamp((int) Math.min(Integer.MAX_VALUE, covered), minPrefetch, maxPrefetch);
+        return Adjustment.INCREASE;
+    }
+
+    private static int clamp(int value, int min, int max){
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -2,24 +2,110 @@ package com.ms.email.consumer;
 
 import com.ms.email.dtos.EmailRecordDto;
 import com.ms.email.models.EmailModel;
+import com.ms.email.services.EmailCoalescer;
 import com.ms.email.services.EmailService;
+import com.ms.email.services.UserDirectoryService;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
 @Component
 public class EmailConsumer {
 
+    /**
+     * Epoch millis stamped by the user service producer when the message was published.
+     */
+    public static final String PRODUCED_AT_HEADER = "x-produced-at";
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailConsumer.class);
+
     @Autowired
     EmailService emailService;
 
-    @RabbitListener(queues = "${broker.queue.email.name}")
-    public void ListenEmailQueue(@Payload EmailRecordDto emailRecordDto){
-        EmailModel emailModel = new EmailModel();
-        BeanUtils.copyProperties(emailRecordDto,emailModel);
-        emailService.sendEmail(emailModel);
+    @Autowired
+    EmailCoalescer emailCoalescer;
+
+    @Autowired
+    UserDirectoryService userDirectoryService;
+
+    @Autowired
+    ListenerFlowControl listenerFlowControl;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    /**
+     * With coalescing the message is only buffered here and acknowledged by the
+     * {@link EmailCoalescer} once its digest has been saved. Until the coalescer holds it, the
+     * message is this listener's to settle: a failure on the way is nacked back to the queue.
+     * Nothing is sent to a user who has been deleted.
+     */
+    @Timed("email.listener.process")
+    @RabbitListener(id = ListenerFlowControl.LISTENER_ID, queues = "${broker.queue.email.name}",
+            ackMode = "#{${email.coalescing.enabled:false} ? 'MANUAL' : 'AUTO'}")
+    public void ListenEmailQueue(@Payload EmailRecordDto emailRecordDto,
+                                 @Header(name = PRODUCED_AT_HEADER, required = false) Long producedAt,
+                                 @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId,
+                                 @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                                 Channel channel){
+        long receivedAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        if (emailCoalescer.isEnabled()) {
+            try {
+                listenerFlowControl.applyPrefetch(channel);
+                EmailRecordDto email = userDirectoryService.resolveRecipient(emailRecordDto);
+                if (email == null) {
+                    settle(channel, deliveryTag, messageId, true);
+                } else {
+                    emailCoalescer.submit(new EmailCoalescer.PendingEmail(email, messageId, channel, deliveryTag));
+                }
+            } catch (RuntimeException e) {
+                settle(channel, deliveryTag, messageId, false);
+                throw e;
+            }
+        } else {
+            listenerFlowControl.applyPrefetch(channel);
+            EmailRecordDto email = userDirectoryService.resolveRecipient(emailRecordDto);
+            if (email != null) {
+                EmailModel emailModel = new EmailModel();
+                BeanUtils.copyProperties(email,emailModel);
+                emailModel.setSourceMessageIds(messageId);
+                emailService.sendEmail(emailModel);
+            }
+        }
+
+        meterRegistry.timer("email.pipeline.processing").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (producedAt != null) {
+            // Clocks of producer and consumer hosts may drift; negative values are clamped to zero.
+            meterRegistry.timer("email.pipeline.queue.wait")
+                    .record(Math.max(0, receivedAt - producedAt), TimeUnit.MILLISECONDS);
+            meterRegistry.timer("email.pipeline.lag")
+                    .record(Math.max(0, System.currentTimeMillis() - producedAt), TimeUnit.MILLISECONDS);
+        }
+    }
 
+    private static void settle(Channel channel, long deliveryTag, String messageId, boolean ack){
+        try {
+            if (ack) {
+                channel.basicAck(deliveryTag, false);
+            } else {
+                channel.basicNack(deliveryTag, false, true);
+            }
+        } catch (IOException | RuntimeException e) {
+            // channel gone: the broker redelivers the message to the next consumer
+            logger.warn("Could not {} message {}: {}", ack ? "ack" : "nack", messageId, e.getMessage());
+        }
     }
 }
@@ -0,0 +1,210 @@
+package com.ms.email.consumer;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Sizes the email listener from the SMTP send times and errors (see {@link AimdWindow}). The
+ * concurrency is the number of consumers of the listener container, each sending one email at a
+ * time. The prefetch is applied by every consumer to its own channel as a channel-wide QoS, which
+ * takes effect at once, below the per-consumer prefetch of max-prefetch the consumers start with.
+ *
+ * <p>Not applied with email.coalescing.enabled: the digests are sent by the coalescer, and its
+ * buffer is made of unacknowledged deliveries, which a small prefetch would starve.
+ */
+@Component
+public class ListenerFlowControl implements SmartLifecycle {
+
+    public static final String LISTENER_ID = "emailListener";
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerFlowControl.class);
+
+    private record AppliedPrefetch(Channel channel, int prefetch) {
+    }
+
+    @Autowired
+    RabbitListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value(value = "${email.flow-control.enabled:true}")
+    boolean enabled;
+
+    @Value(value = "${email.coalescing.enabled:false}")
+    boolean coalescing;
+
+    @Value(value = "${email.flow-control.min-concurrency:1}")
+    int minConcurrency;
+
+    @Value(value = "${email.flow-control.max-concurrency:8}")
+    int maxConcurrency;
+
+    @Value(value = "${email.flow-control.min-prefetch:1}")
+    int minPrefetch;
+
+    @Value(value = "${email.flow-control.initial-prefetch:10}")
+    int initialPrefetch;
+
+    @Value(value = "${email.flow-control.max-prefetch:250}")
+    int maxPrefetch;
+
+    @Value(value = "${email.flow-control.target-latency:2s}")
+    Duration targetLatency;
+
+    @Value(value = "${email.flow-control.max-error-rate:0.1}")
+    double maxErrorRate;
+
+    @Value(value = "${email.flow-control.decrease-factor:0.5}")
+    double decreaseFactor;
+
+    @Value(value = "${email.flow-control.prefetch-coverage:1s}")
+    Duration prefetchCoverage;
+
+    @Value(value = "${email.flow-control.sample-window:1s}")
+    Duration sampleWindow;
+
+    @Value(value = "${email.flow-control.min-window-samples:5}")
+    int minWindowSamples;
+
+    private AimdWindow window;
+
+    private volatile SimpleMessageListenerContainer container;
+
+    private int appliedConcurrency;
+
+    private volatile boolean running;
+
+    // consumers of a SimpleMessageListenerContainer keep their thread and channel
+    private final ThreadLocal<AppliedPrefetch> appliedPrefetch = new ThreadLocal<>();
+
+    @PostConstruct
+    void init(){
+        window = new AimdWindow(minConcurrency, minConcurrency, maxConcurrency,
+                initialPrefetch, minPrefetch, maxPrefetch,
+                targetLatency, maxErrorRate, decreaseFactor, prefetchCoverage, sampleWindow, minWindowSamples);
+        Gauge.builder("email.listener.window", window, AimdWindow::getWindow)
+                .description("Unacknowledged deliveries the email listener may hold")
+                .register(meterRegistry);
+        Gauge.builder("email.listener.concurrency", window, AimdWindow::getConcurrency)
+                .register(meterRegistry);
+        Gauge.builder("email.listener.prefetch", window, AimdWindow::getPrefetch)
+                .register(meterRegistry);
+    }
+
+    AimdWindow getWindow(){
+        return window;
+    }
+
+    /**
+     * Records one SMTP send and resizes the listener when a sample window closes.
+     */
+    public void record(long latencyNanos, boolean error){
+        if (container == null) {
+            return;
+        }
+        int windowBefore = window.getWindow();
+        AimdWindow.Adjustment adjustment = window.record(latencyNanos, error, System.nanoTime());
+        if (adjustment == AimdWindow.Adjustment.NONE) {
+            return;
+        }
+        if (adjustment != AimdWindow.Adjustment.INCREASE) {
+            meterRegistry.counter("email.listener.window.decrease", "reason", adjustment.name().toLowerCase(Locale.ROOT)).increment();
+            // at the lower bound every further window would log the same line
+            if (window.getWindow() < windowBefore) {
+                logger.info("SMTP {} too high, email listener down to {} consumers with prefetch {}",
+                        adjustment == AimdWindow.Adjustment.ERRORS ? "error rate" : "latency", window.getConcurrency(), window.getPrefetch());
+            }
+        }
+        resize(window.getConcurrency());
+    }
+
+    /**
+     * Called by the listener for every delivery; a QoS change costs one round trip on the
+     * consumer's channel and is only sent when the prefetch changed.
+     */
+    public void applyPrefetch(Channel channel){
+        if (container == null || channel == null) {
+            return;
+        }
+        int prefetch = window.getPrefetch();
+        AppliedPrefetch applied = appliedPrefetch.get();
+        if (applied != null && applied.channel() == channel && applied.prefetch() == prefetch) {
+            return;
+        }
+        try {
+            channel.basicQos(prefetch, true);
+            appliedPrefetch.set(new AppliedPrefetch(channel, prefetch));
+        } catch (IOException e) {
+            logger.warn("Could not set the email listener prefetch to {}: {}", prefetch, e.getMessage());
+        }
+    }
+
+    private synchronized void resize(int concurrency){
+        if (concurrency == appliedConcurrency) {
+            return;
+        }
+        // both bounds move together, so the container does not scale on its own in between
+        if (concurrency > appliedConcurrency) {
+            container.setMaxConcurrentConsumers(concurrency);
+            container.setConcurrentConsumers(concurrency);
+        } else {
+            container.setConcurrentConsumers(concurrency);
+            container.setMaxConcurrentConsumers(concurrency);
+        }
+        appliedConcurrency = concurrency;
+    }
+
+    @Override
+    public void start(){
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        if (coalescing) {
+            logger.info("Email listener flow control is off while coalescing is enabled");
+            return;
+        }
+        MessageListenerContainer listener = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (!(listener instanceof SimpleMessageListenerContainer simple)) {
+            logger.warn("Email listener flow control needs a SimpleMessageListenerContainer, found {}", listener);
+            return;
+        }
+        simple.setPrefetchCount(maxPrefetch);
+        container = simple;
+        resize(window.getConcurrency());
+    }
+
+    @Override
+    public void stop(){
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning(){
+        return running;
+    }
+
+    /**
+     * Before the listener containers start, so their first consumers already use max-prefetch.
+     */
+    @Override
+    public int getPhase(){
+        return 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ms.email.consumer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exposes the email queue backlog as a gauge. The broker is polled on a fixed delay
+ * instead of on every scrape, so the gauge itself only reads a cached value.
+ */
+@Component
+public class QueueDepthSampler {
+
+    final AmqpAdmin amqpAdmin;
+
+    private final String queue;
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong consumers = new AtomicLong();
+
+    public QueueDepthSampler(AmqpAdmin amqpAdmin, MeterRegistry meterRegistry,
+                             @Value("${broker.queue.email.name}") String queue){
+        this.amqpAdmin = amqpAdmin;
+        this.queue = queue;
+        Gauge.builder("email.queue.depth", depth, AtomicLong::get)
+                .tag("queue", queue)
+                .description("Messages ready in the email queue, sampled periodically")
+                .register(meterRegistry);
+        Gauge.builder("email.queue.consumers", consumers, AtomicLong::get)
+                .tag("queue", queue)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${broker.queue.email.depth-sample-interval:15s}")
+    public void sample(){
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(queue);
+            if (info != null) {
+                depth.set(info.getMessageCount());
+                consumers.set(info.getConsumerCount());
+            }
+        } catch (RuntimeException e) {
+            // broker unavailable: keep the last sampled value
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.ms.email.consumer;
+
+import com.ms.email.dtos.UserEventRecordDto;
+import com.ms.email.services.UserDirectoryService;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserEventConsumer {
+
+    @Autowired
+    UserDirectoryService userDirectoryService;
+
+    @RabbitListener(queues = "${broker.queue.user-events.name}")
+    public void listenUserEvents(@Payload UserEventRecordDto event){
+        try {
+            userDirectoryService.apply(event);
+        } catch (DataIntegrityViolationException e) {
+            // the snapshot loader inserted the same new user meanwhile; the row exists now
+            userDirectoryService.apply(event);
+        }
+    }
+}
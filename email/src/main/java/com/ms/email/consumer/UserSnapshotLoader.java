@@ -0,0 +1,168 @@
+package com.ms.email.consumer;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.email.dtos.UserEventRecordDto;
+import com.ms.email.services.UserDirectoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seeds the user directory from the user service snapshot (user-directory.snapshot-url) until one
+ * load has completed, which is recorded in the directory. The user service may start later than
+ * this one, so failed loads are retried in the background with exponential backoff.
+ * The events queue is bound before this runs, so changes made while the snapshot is read are
+ * queued and applied afterwards; versions sort out the overlap.
+ */
+@Component
+public class UserSnapshotLoader implements ApplicationRunner, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSnapshotLoader.class);
+
+    @Autowired
+    UserDirectoryService userDirectoryService;
+
+    @Value("${user-directory.snapshot-url:}")
+    String snapshotUrl;
+
+    @Value("${user-directory.snapshot-chunk-size:500}")
+    int chunkSize;
+
+    @Value("${user-directory.snapshot-retry-initial-interval:1s}")
+    Duration retryInitialInterval;
+
+    @Value("${user-directory.snapshot-retry-max-interval:1m}")
+    Duration retryMaxInterval;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile Thread loader;
+
+    @Override
+    public void run(ApplicationArguments args){
+        if (snapshotUrl.isBlank()) {
+            return;
+        }
+        loader = new Thread(this::seed, "user-snapshot-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @Override
+    public void destroy(){
+        Thread thread = loader;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Loads the snapshot unless the directory was seeded before; returns once a load succeeded.
+     */
+    void seed(){
+        Duration backoff = retryInitialInterval;
+        boolean failing = false;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (userDirectoryService.isSeeded()) {
+                    return;
+                }
+                long applied = load(URI.create(snapshotUrl));
+                userDirectoryService.markSeeded(applied);
+                logger.info("Loaded {} users from the user snapshot", applied);
+                return;
+            } catch (IOException | RuntimeException e) {
+                // the live events still fill the directory; recipients fall back to the message data
+                if (!failing) {
+                    logger.warn("Could not load the user snapshot from {}, retrying with backoff up to {}: {}",
+                            snapshotUrl, retryMaxInterval, e.getMessage());
+                    failing = true;
+                } else {
+                    logger.debug("Could not load the user snapshot from {}: {}", snapshotUrl, e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                Thread.sleep(backoff.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Duration doubled = backoff.multipliedBy(2);
+            backoff = doubled.compareTo(retryMaxInterval) < 0 ? doubled : retryMaxInterval;
+        }
+    }
+
+    long load(URI uri) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Snapshot request returned " + response.statusCode());
+            }
+            return load(body);
+        }
+    }
+
+    long load(InputStream ndjson) throws IOException {
+        long applied = 0;
+        List<UserEventRecordDto> chunk = new ArrayList<>(chunkSize);
+        try (MappingIterator<UserEventRecordDto> events = objectMapper.readerFor(UserEventRecordDto.class).readValues(ndjson)) {
+            while (events.hasNext()) {
+                chunk.add(events.next());
+                if (chunk.size() == chunkSize) {
+                    applied += applyChunk(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applied += applyChunk(chunk);
+        }
+        return applied;
+    }
+
+    /**
+     * A chunk that lost an insert race with the event listener was rolled back as a whole; its
+     * events are then applied one by one, the conflicting one again once its row exists.
+     */
+    private int applyChunk(List<UserEventRecordDto> chunk){
+        try {
+            return userDirectoryService.applyAll(chunk);
+        } catch (DataIntegrityViolationException e) {
+            int applied = 0;
+            for (UserEventRecordDto event : chunk) {
+                boolean changed;
+                try {
+                    changed = userDirectoryService.apply(event);
+                } catch (DataIntegrityViolationException raced) {
+                    changed = userDirectoryService.apply(event);
+                }
+                if (changed) {
+                    applied++;
+                }
+            }
+            return applied;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ms.email.dtos;
+
+import com.ms.email.enums.UserEventType;
+
+import java.util.UUID;
+
+/**
+ * Change event published by the user service on the user events exchange, also the line format
+ * of its snapshot endpoint. {@code occurredAt} is epoch millis.
+ */
+public record UserEventRecordDto(
+        UUID eventId,
+        UserEventType type,
+        UUID userId,
+        long version,
+        String name,
+        String email,
+        long occurredAt
+) {
+}
@@ -0,0 +1,8 @@
+package com.ms.email.enums;
+
+public enum UserEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    SNAPSHOT
+}
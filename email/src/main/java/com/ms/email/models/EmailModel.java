@@ -24,4 +24,10 @@ public class EmailModel implements Serializable {
     private String text;
     private LocalDateTime sendDateEmail;
     private StatusEmail statusEmail;
+    /**
+     * AMQP message ids this email was sent for, comma separated; more than one for a digest.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String sourceMessageIds;
+    private int messageCount = 1;
 }
@@ -0,0 +1,50 @@
+package com.ms.email.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Local copy of a user, kept up to date from the user change events. Deleted users stay as
+ * tombstones so that late events for them are still recognised as stale.
+ */
+@Entity
+@Table(name = "TB_USER_DIRECTORY")
+@Data
+public class UserDirectoryModel implements Persistable<UUID>, Serializable {
+
+    @Id
+    private UUID userId;
+    private String name;
+    private String email;
+    private long version;
+    private boolean deleted;
+    private LocalDateTime updatedAt;
+
+    /**
+     * The id is assigned from the event, so without this flag save() would merge, and merging
+     * costs a SELECT for a row we already know does not exist.
+     */
+    @Transient
+    private boolean created;
+
+    @Override
+    public UUID getId(){
+        return userId;
+    }
+
+    @Override
+    public boolean isNew(){
+        return created;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markPersisted(){
+        created = false;
+    }
+}
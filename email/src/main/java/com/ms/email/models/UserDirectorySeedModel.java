@@ -0,0 +1,26 @@
+package com.ms.email.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Marker row written once the user directory has been seeded from a complete snapshot. Until it
+ * exists, every start loads the snapshot again.
+ */
+@Entity
+@Table(name = "TB_USER_DIRECTORY_SEED")
+@Data
+public class UserDirectorySeedModel implements Serializable {
+
+    public static final short ID = 1;
+
+    @Id
+    private short id = ID;
+    private LocalDateTime seededAt;
+    private long users;
+}
@@ -0,0 +1,17 @@
+package com.ms.email.repositories;
+
+import com.ms.email.models.UserDirectoryModel;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UserDirectoryRepository extends JpaRepository<UserDirectoryModel, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<UserDirectoryModel> findWithLockByUserId(UUID userId);
+
+    Optional<UserDirectoryModel> findByUserId(UUID userId);
+}
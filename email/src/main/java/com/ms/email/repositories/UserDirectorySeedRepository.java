@@ -0,0 +1,7 @@
+package com.ms.email.repositories;
+
+import com.ms.email.models.UserDirectorySeedModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserDirectorySeedRepository extends JpaRepository<UserDirectorySeedModel, Short> {
+}
@@ -0,0 +1,199 @@
+package com.ms.email.services;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.models.EmailModel;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Optional digest stage: messages for the same recipient that arrive within the window are sent
+ * as one email. The window starts with the first message of a recipient, so no message waits
+ * longer than the window (plus one flush interval).
+ *
+ * <p>Buffered messages are not acknowledged until their digest has been saved; if the service
+ * stops or crashes they return to the queue instead of being lost. The buffer is bounded: when
+ * it holds max-buffered-messages, a new message is sent at once, together with whatever is
+ * already buffered for its recipient. The listener prefetch bounds it too, since every buffered
+ * message is an unacknowledged delivery.
+ */
+@Service
+public class EmailCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailCoalescer.class);
+
+    /**
+     * A queue message waiting for its digest.
+     */
+    public record PendingEmail(EmailRecordDto email, String messageId, Channel channel, long deliveryTag) {
+    }
+
+    private static class Digest {
+        final long openedAt;
+        final List<PendingEmail> emails = new ArrayList<>();
+
+        Digest(long openedAt){
+            this.openedAt = openedAt;
+        }
+    }
+
+    @Autowired
+    EmailService emailService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value(value = "${email.coalescing.enabled:false}")
+    boolean enabled;
+
+    @Value(value = "${email.coalescing.window:5s}")
+    Duration window;
+
+    @Value(value = "${email.coalescing.max-messages-per-digest:20}")
+    int maxMessagesPerDigest;
+
+    @Value(value = "${email.coalescing.max-buffered-messages:5000}")
+    int maxBufferedMessages;
+
+    // by recipient, in the order the digests were opened
+    private final Map<String, Digest> digests = new LinkedHashMap<>();
+
+    private int buffered;
+
+    @PostConstruct
+    void registerMeters(){
+        Gauge.builder("email.coalescing.buffered", this, EmailCoalescer::buffered)
+                .description("Messages waiting to be sent in a digest")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    synchronized int buffered(){
+        return buffered;
+    }
+
+    public void submit(PendingEmail email){
+        List<PendingEmail> ready = null;
+        synchronized (this) {
+            String recipient = email.email().emailTo().toLowerCase(Locale.ROOT);
+            Digest digest = digests.get(recipient);
+            if (buffered >= maxBufferedMessages) {
+                meterRegistry.counter("email.coalescing.overflow").increment();
+                ready = new ArrayList<>();
+                if (digest != null) {
+                    ready.addAll(remove(recipient));
+                }
+                ready.add(email);
+            } else {
+                if (digest == null) {
+                    digest = new Digest(System.nanoTime());
+                    digests.put(recipient, digest);
+                }
+                digest.emails.add(email);
+                buffered++;
+                if (digest.emails.size() >= maxMessagesPerDigest) {
+                    ready = remove(recipient);
+                }
+            }
+        }
+        if (ready != null) {
+            send(ready);
+        }
+    }
+
+    private List<PendingEmail> remove(String recipient){
+        List<PendingEmail> emails = digests.remove(recipient).emails;
+        buffered -= emails.size();
+        return emails;
+    }
+
+    @Scheduled(fixedDelayString = "${email.coalescing.flush-interval:250ms}")
+    public void flushDue(){
+        if (!enabled) {
+            return;
+        }
+        List<List<PendingEmail>> due = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            Iterator<Digest> iterator = digests.values().iterator();
+            while (iterator.hasNext()) {
+                Digest digest = iterator.next();
+                if (now - digest.openedAt < window.toNanos()) {
+                    break; // the rest were opened later
+                }
+                iterator.remove();
+                buffered -= digest.emails.size();
+                due.add(digest.emails);
+            }
+        }
+        due.forEach(this::send);
+    }
+
+    private void send(List<PendingEmail> emails){
+        try {
+            emailService.sendEmail(digest(emails));
+            meterRegistry.summary("email.coalescing.digest.size").record(emails.size());
+        } catch (RuntimeException e) {
+            logger.error("Sending a digest of {} messages to {} failed, returning them to the queue: {}",
+                    emails.size(), emails.get(0).email().emailTo(), e.getMessage(), e);
+            emails.forEach(email -> settle(email, false));
+            return;
+        }
+        emails.forEach(email -> settle(email, true));
+    }
+
+    private static void settle(PendingEmail email, boolean ack){
+        try {
+            if (ack) {
+                email.channel().basicAck(email.deliveryTag(), false);
+            } else {
+                email.channel().basicNack(email.deliveryTag(), false, true);
+            }
+        } catch (IOException | RuntimeException e) {
+            // channel gone: the broker redelivers the message to the next consumer
+            logger.warn("Could not {} message {}: {}", ack ? "ack" : "nack", email.messageId(), e.getMessage());
+        }
+    }
+
+    /**
+     * One message is sent as it is; several become one email listing them in arrival order.
+     */
+    static EmailModel digest(List<PendingEmail> emails){
+        EmailRecordDto first = emails.get(0).email();
+        EmailModel emailModel = new EmailModel();
+        emailModel.setUserId(first.userId());
+        emailModel.setEmailTo(first.emailTo());
+        emailModel.setMessageCount(emails.size());
+        emailModel.setSourceMessageIds(emails.stream().map(PendingEmail::messageId).collect(Collectors.joining(",")));
+        if (emails.size() == 1) {
+            emailModel.setSubject(first.subject());
+            emailModel.setText(first.text());
+        } else {
+            emailModel.setSubject(first.subject() + " (+" + (emails.size() - 1) + " more)");
+            emailModel.setText(emails.stream()
+                    .map(email -> email.email().subject() + "\n\n" + email.email().text())
+                    .collect(Collectors.joining("\n\n----------\n\n")));
+        }
+        return emailModel;
+    }
+}
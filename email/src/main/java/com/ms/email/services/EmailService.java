@@ -1,8 +1,12 @@
 package com.ms.email.services;
 
+import com.ms.email.consumer.ListenerFlowControl;
 import com.ms.email.enums.StatusEmail;
 import com.ms.email.models.EmailModel;
 import com.ms.email.repositories.EmailRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,11 +29,20 @@ public class EmailService {
     @Autowired
     JavaMailSender emailSender;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    ListenerFlowControl listenerFlowControl;
+
     @Value(value = "${spring.mail.username}")
     private String emailFrom;
 
+    @Timed("email.service.send")
     @Transactional
     public EmailModel sendEmail(EmailModel emailModel){
+        Timer.Sample smtpSample = Timer.start(meterRegistry);
+        long smtpStart = System.nanoTime();
         try{
             emailModel.setSendDateEmail(LocalDateTime.now());
             emailModel.setEmailFrom(emailFrom);
@@ -44,7 +57,15 @@ public class EmailService {
         } catch (MailException e){
             emailModel.setStatusEmail(StatusEmail.ERROR);
         } finally {
-            return emailRepository.save(emailModel);
+            StatusEmail status = emailModel.getStatusEmail();
+            smtpSample.stop(meterRegistry.timer("email.smtp.send", "status", status == null ? "UNKNOWN" : status.name()));
+            if (listenerFlowControl != null) {
+                listenerFlowControl.record(System.nanoTime() - smtpStart, status != StatusEmail.SENT);
+            }
+            Timer.Sample dbSample = Timer.start(meterRegistry);
+            EmailModel saved = emailRepository.save(emailModel);
+            dbSample.stop(meterRegistry.timer("email.db.save"));
+            return saved;
         }
     }
 
@@ -0,0 +1,117 @@
+package com.ms.email.services;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.dtos.UserEventRecordDto;
+import com.ms.email.enums.UserEventType;
+import com.ms.email.models.UserDirectoryModel;
+import com.ms.email.models.UserDirectorySeedModel;
+import com.ms.email.repositories.UserDirectoryRepository;
+import com.ms.email.repositories.UserDirectorySeedRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Maintains the local user directory. Events are applied by version: one that is not newer
+ * than the stored state is ignored, which makes redeliveries, out-of-order events and the
+ * overlap between the snapshot and the live stream harmless.
+ *
+ * <p>Two transactions that both find no row for a new user both insert it, and the second one
+ * fails on the primary key with a DataIntegrityViolationException. Applying the event again
+ * then finds the row and compares versions as usual.
+ */
+@Service
+public class UserDirectoryService {
+
+    @Autowired
+    UserDirectoryRepository userDirectoryRepository;
+
+    @Autowired
+    UserDirectorySeedRepository userDirectorySeedRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    /**
+     * Returns true if the event changed the directory.
+     */
+    @Transactional
+    public boolean apply(UserEventRecordDto event){
+        UserDirectoryModel user = userDirectoryRepository.findWithLockByUserId(event.userId()).orElse(null);
+        if (user != null && user.getVersion() >= event.version()) {
+            count(event, "stale");
+            return false;
+        }
+        if (user == null) {
+            user = new UserDirectoryModel();
+            user.setUserId(event.userId());
+            user.setCreated(true);
+        }
+        user.setVersion(event.version());
+        user.setDeleted(event.type() == UserEventType.DELETED);
+        user.setName(user.isDeleted() ? null : event.name());
+        user.setEmail(user.isDeleted() ? null : event.email());
+        user.setUpdatedAt(LocalDateTime.now());
+        userDirectoryRepository.save(user);
+        count(event, "applied");
+        return true;
+    }
+
+    /**
+     * Applies a chunk of events in one transaction, e.g. while loading the snapshot.
+     */
+    @Transactional
+    public int applyAll(List<UserEventRecordDto> events){
+        int applied = 0;
+        for (UserEventRecordDto event : events) {
+            if (apply(event)) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * The email addressed to the user's current address when the directory knows the user;
+     * otherwise, e.g. before the first event for a new user arrived, as it was sent. Null if the
+     * user has been deleted, in which case nothing is sent.
+     */
+    public EmailRecordDto resolveRecipient(EmailRecordDto email){
+        if (email.userId() == null) {
+            return email;
+        }
+        UserDirectoryModel user = userDirectoryRepository.findByUserId(email.userId()).orElse(null);
+        if (user != null && user.isDeleted()) {
+            meterRegistry.counter("email.user.directory.lookups", "outcome", "deleted").increment();
+            return null;
+        }
+        if (user == null || user.getEmail() == null) {
+            meterRegistry.counter("email.user.directory.lookups", "outcome", "miss").increment();
+            return email;
+        }
+        meterRegistry.counter("email.user.directory.lookups", "outcome", "hit").increment();
+        if (user.getEmail().equals(email.emailTo())) {
+            return email;
+        }
+        return new EmailRecordDto(email.userId(), user.getEmail(), email.subject(), email.text());
+    }
+
+    public boolean isSeeded(){
+        return userDirectorySeedRepository.existsById(UserDirectorySeedModel.ID);
+    }
+
+    public void markSeeded(long users){
+        UserDirectorySeedModel seed = new UserDirectorySeedModel();
+        seed.setSeededAt(LocalDateTime.now());
+        seed.setUsers(users);
+        userDirectorySeedRepository.save(seed);
+    }
+
+    private void count(UserEventRecordDto event, String outcome){
+        meterRegistry.counter("email.user.directory.events", "type", String.valueOf(event.type()), "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,13 @@
+-- TB_EMAILS as previously created by Hibernate (ddl-auto=update). IF NOT EXISTS lets databases
+-- that were created that way adopt the migrations (spring.flyway.baseline-on-migrate).
+CREATE TABLE IF NOT EXISTS tb_emails (
+    email_id uuid NOT NULL,
+    email_from varchar(255),
+    email_to varchar(255),
+    send_date_email timestamp(6),
+    status_email smallint CHECK (status_email BETWEEN 0 AND 1),
+    subject varchar(255),
+    text text,
+    user_id uuid,
+    CONSTRAINT tb_emails_pkey PRIMARY KEY (email_id)
+);
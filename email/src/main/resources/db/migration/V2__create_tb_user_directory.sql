@@ -0,0 +1,10 @@
+-- local copy of the user directory, fed by the user change events
+CREATE TABLE IF NOT EXISTS tb_user_directory (
+    user_id uuid NOT NULL,
+    deleted boolean NOT NULL,
+    email varchar(255),
+    name varchar(255),
+    updated_at timestamp(6),
+    version bigint NOT NULL,
+    CONSTRAINT tb_user_directory_pkey PRIMARY KEY (user_id)
+);
@@ -0,0 +1,3 @@
+-- which queue messages an email was sent for: one, or several when they were coalesced into a digest
+ALTER TABLE tb_emails ADD COLUMN IF NOT EXISTS source_message_ids text;
+ALTER TABLE tb_emails ADD COLUMN IF NOT EXISTS message_count integer NOT NULL DEFAULT 1;
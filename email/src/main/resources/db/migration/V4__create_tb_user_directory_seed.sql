@@ -0,0 +1,7 @@
+-- set once the user directory has been seeded from a complete user snapshot
+CREATE TABLE IF NOT EXISTS tb_user_directory_seed (
+    id smallint NOT NULL,
+    seeded_at timestamp(6) NOT NULL,
+    users bigint NOT NULL,
+    CONSTRAINT tb_user_directory_seed_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,79 @@
+package com.ms.email.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AimdWindowTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static AimdWindow window(int concurrency, int prefetch){
+        return new AimdWindow(concurrency, 1, 8, prefetch, 1, 250,
+                Duration.ofMillis(500), 0.1, 0.5, Duration.ofSeconds(1), Duration.ofSeconds(1), 5);
+    }
+
+    /**
+     * Records {@code samples} sends spread over one sample window and returns the last adjustment.
+     */
+    private static AimdWindow.Adjustment sendWindow(AimdWindow window, long start, int samples, long latencyMs, int errors){
+        AimdWindow.Adjustment adjustment = AimdWindow.Adjustment.NONE;
+        for (int i = 0; i < samples; i++) {
+            long now = start + i * 1000 * MS / (samples - 1);
+            adjustment = window.record(latencyMs * MS, i < errors, now);
+        }
+        return adjustment;
+    }
+
+    @Test
+    void testRecord_WhenSmtpIsFast_ShouldAddConsumersOneByOneAndSizePrefetchFromLatency(){
+        AimdWindow window = window(1, 10);
+
+        assertEquals(AimdWindow.Adjustment.INCREASE, sendWindow(window, 0, 10, 20, 0));
+        assertEquals(2, window.getConcurrency());
+        // 1s of sending at 20ms per email
+        assertEquals(50, window.getPrefetch());
+        assertEquals(100, window.getWindow());
+
+        for (int i = 1; i < 20; i++) {
+            sendWindow(window, i * 2000 * MS, 10, 20, 0);
+        }
+        assertEquals(8, window.getConcurrency());
+    }
+
+    @Test
+    void testRecord_WhenLatencyIsAboveTarget_ShouldHalveTheWindow(){
+        AimdWindow window = window(8, 200);
+
+        assertEquals(AimdWindow.Adjustment.LATENCY, sendWindow(window, 0, 10, 800, 0));
+        assertEquals(4, window.getConcurrency());
+        assertEquals(100, window.getPrefetch());
+
+        for (int i = 1; i < 10; i++) {
+            sendWindow(window, i * 2000 * MS, 10, 800, 0);
+        }
+        assertEquals(1, window.getConcurrency());
+        assertEquals(1, window.getPrefetch());
+    }
+
+    @Test
+    void testRecord_WhenErrorRateIsAboveLimit_ShouldDecreaseEvenIfFast(){
+        AimdWindow window = window(4, 40);
+
+        assertEquals(AimdWindow.Adjustment.ERRORS, sendWindow(window, 0, 10, 10, 2));
+        assertEquals(2, window.getConcurrency());
+        assertEquals(20, window.getPrefetch());
+    }
+
+    @Test
+    void testRecord_ShouldWaitForAFullSampleWindow(){
+        AimdWindow window = window(1, 10);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(AimdWindow.Adjustment.NONE, window.record(5 * MS, false, i * MS));
+        }
+        assertEquals(1, window.getConcurrency());
+    }
+}
@@ -0,0 +1,89 @@
+package com.ms.email.consumer;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.dtos.UserEventRecordDto;
+import com.ms.email.enums.UserEventType;
+import com.ms.email.support.RoundTripCounter;
+import com.ms.email.support.RoundTripCountingConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regression guard for the cost of handling one message in each listener: SQL statements, JDBC
+ * round trips and AMQP publishes, on H2 and without a broker (the listener containers are not
+ * started, the listener beans are called directly). When a listener legitimately gets cheaper,
+ * lower its budget.
+ */
+@SpringBootTest(properties = {
+        "spring.rabbitmq.listener.simple.auto-startup=false",
+        "spring.mail.test-connection=false",
+        "management.health.mail.enabled=false",
+        "management.tracing.sampling.probability=0"
+})
+@ActiveProfiles("test")
+@Import(RoundTripCountingConfig.class)
+public class ConsumerRoundTripBudgetTest {
+
+    @Autowired
+    private EmailConsumer emailConsumer;
+
+    @Autowired
+    private UserEventConsumer userEventConsumer;
+
+    @Autowired
+    private RoundTripCounter counter;
+
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Test
+    void listenEmailQueue(){
+        EmailRecordDto email = new EmailRecordDto(UUID.randomUUID(), "budget@example.com", "Welcome", "Hello");
+        // the recipient lookup in the user directory and the insert
+        expect(() -> emailConsumer.ListenEmailQueue(email, System.currentTimeMillis(), UUID.randomUUID().toString(), 1, null), 2, 3, 0);
+    }
+
+    @Test
+    void listenUserEvents_Created(){
+        expect(() -> userEventConsumer.listenUserEvents(event(UserEventType.CREATED, UUID.randomUUID(), 0)), 2, 3, 0);
+    }
+
+    @Test
+    void listenUserEvents_Updated(){
+        UUID userId = UUID.randomUUID();
+        userEventConsumer.listenUserEvents(event(UserEventType.CREATED, userId, 0));
+        expect(() -> userEventConsumer.listenUserEvents(event(UserEventType.UPDATED, userId, 1)), 2, 3, 0);
+    }
+
+    @Test
+    void listenUserEvents_Stale(){
+        UUID userId = UUID.randomUUID();
+        userEventConsumer.listenUserEvents(event(UserEventType.UPDATED, userId, 3));
+        expect(() -> userEventConsumer.listenUserEvents(event(UserEventType.UPDATED, userId, 2)), 1, 2, 0);
+    }
+
+    private static UserEventRecordDto event(UserEventType type, UUID userId, long version){
+        return new UserEventRecordDto(UUID.randomUUID(), type, userId, version, "Budget User", "budget@example.com", System.currentTimeMillis());
+    }
+
+    private void expect(Runnable handler, int statements, int roundTrips, int publishes){
+        counter.reset();
+        handler.run();
+        RoundTripCounter.Counts counts = counter.counts();
+        assertTrue(counts.statements() <= statements,
+                () -> "SQL statements " + counts.statements() + " > budget " + statements + ": " + counts.statementLog());
+        assertTrue(counts.roundTrips() <= roundTrips,
+                () -> "JDBC round trips " + counts.roundTrips() + " > budget " + roundTrips + ": " + counts.statementLog());
+        assertTrue(counts.publishes() <= publishes,
+                () -> "AMQP publishes " + counts.publishes() + " > budget " + publishes + ": " + counts.publishLog());
+    }
+}
@@ -0,0 +1,93 @@
+package com.ms.email.consumer;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.services.EmailCoalescer;
+import com.ms.email.services.EmailService;
+import com.ms.email.services.UserDirectoryService;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailConsumerTest {
+
+    @InjectMocks
+    private EmailConsumer emailConsumer;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private EmailCoalescer emailCoalescer;
+
+    @Mock
+    private UserDirectoryService userDirectoryService;
+
+    @Mock
+    private ListenerFlowControl listenerFlowControl;
+
+    @Mock
+    private Channel channel;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final EmailRecordDto email = new EmailRecordDto(UUID.randomUUID(), "ana@example.com", "Welcome", "Welcome text");
+
+    @Test
+    void testListenEmailQueue_WhenRecipientLookupFailsWhileCoalescing_ShouldNackMessage() throws Exception {
+        when(emailCoalescer.isEnabled()).thenReturn(true);
+        when(userDirectoryService.resolveRecipient(email)).thenThrow(new DataAccessResourceFailureException("database down"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> emailConsumer.ListenEmailQueue(email, null, "m7", 7, channel));
+
+        verify(channel).basicNack(7, false, true);
+        verify(emailCoalescer, never()).submit(any());
+    }
+
+    @Test
+    void testListenEmailQueue_WhenUserWasDeletedWhileCoalescing_ShouldAckWithoutSending() throws Exception {
+        when(emailCoalescer.isEnabled()).thenReturn(true);
+        when(userDirectoryService.resolveRecipient(email)).thenReturn(null);
+
+        emailConsumer.ListenEmailQueue(email, null, "m7", 7, channel);
+
+        verify(channel).basicAck(7, false);
+        verify(emailCoalescer, never()).submit(any());
+    }
+
+    @Test
+    void testListenEmailQueue_WhenUserWasDeletedWithoutCoalescing_ShouldNotSend() {
+        when(emailCoalescer.isEnabled()).thenReturn(false);
+        when(userDirectoryService.resolveRecipient(email)).thenReturn(null);
+
+        emailConsumer.ListenEmailQueue(email, null, "m7", 7, channel);
+
+        verifyNoInteractions(emailService, channel);
+    }
+
+    @Test
+    void testListenEmailQueue_WhenRecipientLookupFailsWithoutCoalescing_ShouldLeaveNackToContainer() {
+        when(emailCoalescer.isEnabled()).thenReturn(false);
+        when(userDirectoryService.resolveRecipient(email)).thenThrow(new DataAccessResourceFailureException("database down"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> emailConsumer.ListenEmailQueue(email, null, "m7", 7, channel));
+
+        verifyNoInteractions(channel, emailService);
+    }
+}
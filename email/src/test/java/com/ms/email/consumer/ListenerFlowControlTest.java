@@ -0,0 +1,88 @@
+package com.ms.email.consumer;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class ListenerFlowControlTest {
+
+    private SimpleMessageListenerContainer container;
+    private ListenerFlowControl flowControl;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp(){
+        container = mock(SimpleMessageListenerContainer.class);
+        RabbitListenerEndpointRegistry registry = mock(RabbitListenerEndpointRegistry.class);
+        when(registry.getListenerContainer(ListenerFlowControl.LISTENER_ID)).thenReturn(container);
+        meterRegistry = new SimpleMeterRegistry();
+
+        flowControl = new ListenerFlowControl();
+        flowControl.listenerRegistry = registry;
+        flowControl.meterRegistry = meterRegistry;
+        flowControl.enabled = true;
+        flowControl.minConcurrency = 1;
+        flowControl.maxConcurrency = 4;
+        flowControl.minPrefetch = 1;
+        flowControl.initialPrefetch = 10;
+        flowControl.maxPrefetch = 100;
+        flowControl.targetLatency = Duration.ofMillis(500);
+        flowControl.maxErrorRate = 0.1;
+        flowControl.decreaseFactor = 0.5;
+        flowControl.prefetchCoverage = Duration.ofSeconds(1);
+        // every send closes a window
+        flowControl.sampleWindow = Duration.ZERO;
+        flowControl.minWindowSamples = 1;
+        flowControl.init();
+    }
+
+    @Test
+    void testStart_ShouldStartConsumersWithMaxPrefetchAndResizeOnSmtpSamples(){
+        flowControl.start();
+        verify(container).setPrefetchCount(100);
+        verify(container).setConcurrentConsumers(1);
+
+        flowControl.record(50_000_000L, false);
+        flowControl.record(50_000_000L, false);
+        verify(container).setMaxConcurrentConsumers(3);
+        verify(container).setConcurrentConsumers(3);
+        assertEquals(60.0, meterRegistry.get("email.listener.window").gauge().value());
+
+        flowControl.record(50_000_000L, true);
+        verify(container, times(2)).setConcurrentConsumers(1);
+        assertEquals(1.0, meterRegistry.get("email.listener.window.decrease").tag("reason", "errors").counter().count());
+    }
+
+    @Test
+    void testApplyPrefetch_ShouldOnlySendQosWhenThePrefetchChanged() throws Exception {
+        flowControl.start();
+        Channel channel = mock(Channel.class);
+
+        flowControl.applyPrefetch(channel);
+        flowControl.applyPrefetch(channel);
+        verify(channel, times(1)).basicQos(10, true);
+
+        // 1s of sending at 20ms per email
+        flowControl.record(20_000_000L, false);
+        flowControl.applyPrefetch(channel);
+        flowControl.applyPrefetch(channel);
+        verify(channel, times(1)).basicQos(50, true);
+    }
+
+    @Test
+    void testStart_WhenCoalescingIsEnabled_ShouldLeaveTheListenerAlone(){
+        flowControl.coalescing = true;
+        flowControl.start();
+
+        flowControl.record(50_000_000L, false);
+        verifyNoInteractions(container);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ms.email.consumer;
+
+import com.ms.email.dtos.UserEventRecordDto;
+import com.ms.email.services.UserDirectoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class UserSnapshotLoaderTest {
+
+    private UserSnapshotLoader loader;
+    private UserDirectoryService userDirectoryService;
+
+    @BeforeEach
+    void setUp(){
+        userDirectoryService = mock(UserDirectoryService.class);
+        loader = spy(new UserSnapshotLoader());
+        loader.userDirectoryService = userDirectoryService;
+        loader.snapshotUrl = "http://user:8081/admin/users/snapshot";
+        loader.chunkSize = 500;
+        loader.retryInitialInterval = Duration.ofMillis(1);
+        loader.retryMaxInterval = Duration.ofMillis(4);
+    }
+
+    private static String line(UUID userId){
+        return "{\"eventId\":\"" + UUID.randomUUID() + "\",\"type\":\"SNAPSHOT\",\"userId\":\"" + userId
+                + "\",\"version\":1,\"name\":\"Ana\",\"email\":\"ana@example.com\",\"occurredAt\":0}\n";
+    }
+
+    @Test
+    void shouldRetryUntilSnapshotLoadsAndMarkDirectorySeeded() throws Exception {
+        doThrow(new IOException("Connection refused"))
+                .doThrow(new IOException("Snapshot request returned 503"))
+                .doReturn(3L)
+                .when(loader).load(any(URI.class));
+
+        loader.seed();
+
+        verify(loader, times(3)).load(any(URI.class));
+        verify(userDirectoryService).markSeeded(3);
+    }
+
+    @Test
+    void shouldNotLoadSeededDirectoryAgain() throws Exception {
+        when(userDirectoryService.isSeeded()).thenReturn(true);
+
+        loader.seed();
+
+        verify(loader, never()).load(any(URI.class));
+        verify(userDirectoryService, never()).markSeeded(anyLong());
+    }
+
+    @Test
+    void shouldApplyChunkEventByEventWhenItLostAnInsertRace() throws Exception {
+        UUID raced = UUID.randomUUID();
+        when(userDirectoryService.applyAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(userDirectoryService.apply(any(UserEventRecordDto.class))).thenReturn(true);
+        when(userDirectoryService.apply(argThat(event -> event != null && event.userId().equals(raced))))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(false);
+
+        String snapshot = line(UUID.randomUUID()) + line(raced) + line(UUID.randomUUID());
+        long applied = loader.load(new ByteArrayInputStream(snapshot.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, applied);
+        verify(userDirectoryService, times(4)).apply(any(UserEventRecordDto.class));
+    }
+}
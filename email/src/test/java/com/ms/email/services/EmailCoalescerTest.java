@@ -0,0 +1,146 @@
+package com.ms.email.services;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.models.EmailModel;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailCoalescerTest {
+
+    @InjectMocks
+    private EmailCoalescer emailCoalescer;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private Channel channel;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private long deliveryTag;
+
+    @BeforeEach
+    void setUp(){
+        settings(Duration.ofMinutes(1), 20, 100);
+        ReflectionTestUtils.setField(emailCoalescer, "enabled", true);
+    }
+
+    private void settings(Duration window, int maxPerDigest, int maxBuffered){
+        ReflectionTestUtils.setField(emailCoalescer, "window", window);
+        ReflectionTestUtils.setField(emailCoalescer, "maxMessagesPerDigest", maxPerDigest);
+        ReflectionTestUtils.setField(emailCoalescer, "maxBufferedMessages", maxBuffered);
+    }
+
+    private void submit(String to, String subject){
+        deliveryTag++;
+        emailCoalescer.submit(new EmailCoalescer.PendingEmail(new EmailRecordDto(UUID.randomUUID(), to, subject, subject + " text"),
+                "m" + deliveryTag, channel, deliveryTag));
+    }
+
+    @Test
+    void testFlushDue_ShouldMergeMessagesPerRecipientOnceTheWindowHasPassed() throws Exception {
+        submit("ana@example.com", "Welcome");
+        submit("bia@example.com", "Welcome");
+        submit("Ana@Example.com", "Profile updated");
+
+        emailCoalescer.flushDue();
+        verifyNoInteractions(emailService, channel);
+        assertEquals(3, emailCoalescer.buffered());
+
+        ReflectionTestUtils.setField(emailCoalescer, "window", Duration.ZERO);
+        emailCoalescer.flushDue();
+
+        ArgumentCaptor<EmailModel> sent = ArgumentCaptor.forClass(EmailModel.class);
+        verify(emailService, times(2)).sendEmail(sent.capture());
+        EmailModel digest = sent.getAllValues().get(0);
+        assertEquals("ana@example.com", digest.getEmailTo());
+        assertEquals("Welcome (+1 more)", digest.getSubject());
+        assertEquals(2, digest.getMessageCount());
+        assertEquals("m1,m3", digest.getSourceMessageIds());
+        assertTrue(digest.getText().indexOf("Welcome text") < digest.getText().indexOf("Profile updated text"));
+        EmailModel single = sent.getAllValues().get(1);
+        assertEquals("Welcome", single.getSubject());
+        assertEquals("m2", single.getSourceMessageIds());
+
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+        verify(channel).basicAck(3, false);
+        assertEquals(0, emailCoalescer.buffered());
+    }
+
+    @Test
+    void testSubmit_WhenDigestIsFull_ShouldSendAtOnce() throws Exception {
+        settings(Duration.ofMinutes(1), 2, 100);
+
+        submit("ana@example.com", "One");
+        verifyNoInteractions(emailService);
+        submit("ana@example.com", "Two");
+
+        verify(emailService).sendEmail(any(EmailModel.class));
+        verify(channel).basicAck(2, false);
+        assertEquals(0, emailCoalescer.buffered());
+    }
+
+    @Test
+    void testSubmit_WhenBufferIsFull_ShouldNotBufferMore() throws Exception {
+        settings(Duration.ofMinutes(1), 20, 2);
+
+        submit("ana@example.com", "One");
+        submit("bia@example.com", "One");
+        submit("caio@example.com", "One");
+        submit("ana@example.com", "Two");
+
+        ArgumentCaptor<EmailModel> sent = ArgumentCaptor.forClass(EmailModel.class);
+        verify(emailService, times(2)).sendEmail(sent.capture());
+        assertEquals("m3", sent.getAllValues().get(0).getSourceMessageIds());
+        assertEquals("m1,m4", sent.getAllValues().get(1).getSourceMessageIds());
+        assertEquals(1, emailCoalescer.buffered());
+        assertEquals(2, meterRegistry.counter("email.coalescing.overflow").count());
+    }
+
+    @Test
+    void testSend_WhenSavingFails_ShouldReturnMessagesToTheQueue() throws Exception {
+        settings(Duration.ZERO, 20, 100);
+        when(emailService.sendEmail(any(EmailModel.class))).thenThrow(new IllegalStateException("database down"));
+
+        submit("ana@example.com", "One");
+        submit("ana@example.com", "Two");
+        emailCoalescer.flushDue();
+
+        verify(channel).basicNack(1, false, true);
+        verify(channel).basicNack(2, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void testDigest_WithOneMessage_ShouldKeepIt(){
+        EmailRecordDto email = new EmailRecordDto(UUID.randomUUID(), "ana@example.com", "Welcome", "Hello");
+
+        EmailModel model = EmailCoalescer.digest(List.of(new EmailCoalescer.PendingEmail(email, "m1", channel, 1)));
+
+        assertEquals("Welcome", model.getSubject());
+        assertEquals("Hello", model.getText());
+        assertEquals(1, model.getMessageCount());
+    }
+}
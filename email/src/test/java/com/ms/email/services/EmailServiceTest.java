@@ -3,10 +3,13 @@ package com.ms.email.services;
 import com.ms.email.enums.StatusEmail;
 import com.ms.email.models.EmailModel;
 import com.ms.email.repositories.EmailRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
@@ -29,6 +32,9 @@ public class EmailServiceTest {
     @Mock
     private JavaMailSender emailSender;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Test
     void shouldSendEmailSuccessfully(){
         EmailModel emailModel = new EmailModel();
@@ -45,6 +51,8 @@ public class EmailServiceTest {
         assertEquals(StatusEmail.SENT, savedEmail.getStatusEmail());
         assertNotNull(savedEmail.getSendDateEmail());
         assertEquals(emailService.getEmailFrom(), savedEmail.getEmailFrom());
+        assertEquals(1, meterRegistry.get("email.smtp.send").tag("status", "SENT").timer().count());
+        assertEquals(1, meterRegistry.get("email.db.save").timer().count());
     }
     @Test
     void shouldSetStatusErrorWhenMailException(){
@@ -63,5 +71,6 @@ public class EmailServiceTest {
         assertEquals(StatusEmail.ERROR, savedEmail.getStatusEmail());
         assertNotNull(savedEmail.getSendDateEmail());
         assertEquals(emailService.getEmailFrom(), savedEmail.getEmailFrom());
+        assertEquals(1, meterRegistry.get("email.smtp.send").tag("status", "ERROR").timer().count());
     }
 }
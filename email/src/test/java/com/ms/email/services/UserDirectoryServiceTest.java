@@ -0,0 +1,136 @@
+package com.ms.email.services;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.dtos.UserEventRecordDto;
+import com.ms.email.enums.UserEventType;
+import com.ms.email.models.UserDirectoryModel;
+import com.ms.email.repositories.UserDirectoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserDirectoryServiceTest {
+
+    @InjectMocks
+    private UserDirectoryService userDirectoryService;
+
+    @Mock
+    private UserDirectoryRepository userDirectoryRepository;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static UserEventRecordDto event(UserEventType type, UUID userId, long version, String email){
+        return new UserEventRecordDto(UUID.randomUUID(), type, userId, version, "Ana", email, System.currentTimeMillis());
+    }
+
+    private static UserDirectoryModel stored(UUID userId, long version){
+        UserDirectoryModel user = new UserDirectoryModel();
+        user.setUserId(userId);
+        user.setEmail("old@example.com");
+        user.setVersion(version);
+        return user;
+    }
+
+    @Test
+    void shouldInsertUnknownUser(){
+        UUID id = UUID.randomUUID();
+        when(userDirectoryRepository.findWithLockByUserId(id)).thenReturn(Optional.empty());
+
+        assertTrue(userDirectoryService.apply(event(UserEventType.CREATED, id, 0, "ana@example.com")));
+
+        ArgumentCaptor<UserDirectoryModel> saved = ArgumentCaptor.forClass(UserDirectoryModel.class);
+        verify(userDirectoryRepository).save(saved.capture());
+        assertEquals(id, saved.getValue().getUserId());
+        assertEquals("ana@example.com", saved.getValue().getEmail());
+        assertFalse(saved.getValue().isDeleted());
+    }
+
+    @Test
+    void shouldIgnoreEventsNotNewerThanStoredVersion(){
+        UUID id = UUID.randomUUID();
+        when(userDirectoryRepository.findWithLockByUserId(id)).thenReturn(Optional.of(stored(id, 3)));
+
+        assertFalse(userDirectoryService.apply(event(UserEventType.UPDATED, id, 3, "new@example.com")));
+        assertFalse(userDirectoryService.apply(event(UserEventType.SNAPSHOT, id, 2, "older@example.com")));
+
+        verify(userDirectoryRepository, never()).save(any(UserDirectoryModel.class));
+        assertEquals(2, meterRegistry.get("email.user.directory.events").tag("outcome", "stale").counters()
+                .stream().mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void shouldKeepTombstoneForDeletedUser(){
+        UUID id = UUID.randomUUID();
+        UserDirectoryModel user = stored(id, 3);
+        when(userDirectoryRepository.findWithLockByUserId(id)).thenReturn(Optional.of(user));
+
+        assertTrue(userDirectoryService.apply(event(UserEventType.DELETED, id, 4, null)));
+
+        assertTrue(user.isDeleted());
+        assertNull(user.getEmail());
+        assertEquals(4, user.getVersion());
+        verify(userDirectoryRepository).save(user);
+    }
+
+    @Test
+    void shouldCountAppliedEventsOfChunk(){
+        UUID id = UUID.randomUUID();
+        when(userDirectoryRepository.findWithLockByUserId(any(UUID.class))).thenReturn(Optional.empty());
+        when(userDirectoryRepository.findWithLockByUserId(id)).thenReturn(Optional.of(stored(id, 9)));
+
+        int applied = userDirectoryService.applyAll(List.of(
+                event(UserEventType.SNAPSHOT, UUID.randomUUID(), 0, "a@example.com"),
+                event(UserEventType.SNAPSHOT, id, 5, "b@example.com")));
+
+        assertEquals(1, applied);
+    }
+
+    @Test
+    void shouldAddressEmailToCurrentDirectoryAddress(){
+        UUID id = UUID.randomUUID();
+        UserDirectoryModel user = stored(id, 2);
+        user.setEmail("current@example.com");
+        when(userDirectoryRepository.findByUserId(id)).thenReturn(Optional.of(user));
+
+        EmailRecordDto resolved = userDirectoryService.resolveRecipient(new EmailRecordDto(id, "old@example.com", "Welcome", "Hello"));
+
+        assertEquals("current@example.com", resolved.emailTo());
+        assertEquals("Welcome", resolved.subject());
+    }
+
+    @Test
+    void shouldKeepMessageAddressForUnknownUser(){
+        EmailRecordDto email = new EmailRecordDto(UUID.randomUUID(), "new@example.com", "Welcome", "Hello");
+        when(userDirectoryRepository.findByUserId(email.userId())).thenReturn(Optional.empty());
+
+        assertSame(email, userDirectoryService.resolveRecipient(email));
+    }
+
+    @Test
+    void shouldSendNothingToDeletedUser(){
+        UUID id = UUID.randomUUID();
+        UserDirectoryModel user = stored(id, 4);
+        user.setDeleted(true);
+        user.setEmail(null);
+        when(userDirectoryRepository.findByUserId(id)).thenReturn(Optional.of(user));
+
+        assertNull(userDirectoryService.resolveRecipient(new EmailRecordDto(id, "old@example.com", "Welcome", "Hello")));
+        assertEquals(1, meterRegistry.get("email.user.directory.lookups").tag("outcome", "deleted").counter().count());
+    }
+}
@@ -0,0 +1,82 @@
+package com.ms.email.support;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDK proxies around a {@link DataSource} and the connections and statements it hands out,
+ * reporting every executed statement and round trip to a {@link RoundTripCounter}.
+ */
+public final class CountingDataSource {
+
+    private CountingDataSource(){
+    }
+
+    public static DataSource wrap(DataSource dataSource, RoundTripCounter counter){
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = method.invoke(target, args);
+            return result instanceof Connection connection && method.getName().equals("getConnection")
+                    ? connection(connection, counter)
+                    : result;
+        });
+    }
+
+    private static Connection connection(Connection connection, RoundTripCounter counter){
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = method.invoke(target, args);
+            switch (method.getName()) {
+                case "commit", "rollback" -> counter.roundTrip();
+                case "prepareStatement" -> result = statement(PreparedStatement.class, (Statement) result, (String) args[0], counter);
+                case "prepareCall" -> result = statement(CallableStatement.class, (Statement) result, (String) args[0], counter);
+                case "createStatement" -> result = statement(Statement.class, (Statement) result, null, counter);
+                default -> {
+                }
+            }
+            return result;
+        });
+    }
+
+    private static <T extends Statement> T statement(Class<T> type, Statement statement, String preparedSql, RoundTripCounter counter){
+        List<String> batch = new ArrayList<>();
+        return proxy(type, type.cast(statement), (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("addBatch")) {
+                batch.add(args != null && args.length == 1 ? (String) args[0] : preparedSql);
+            } else if (name.equals("clearBatch")) {
+                batch.clear();
+            } else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                batch.forEach(counter::statement);
+                batch.clear();
+                counter.roundTrip();
+            } else if (name.startsWith("execute")) {
+                counter.statement(args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql);
+                counter.roundTrip();
+            }
+            return method.invoke(target, args);
+        });
+    }
+
+    private interface Handler<T> {
+        Object invoke(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler){
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            try {
+                return handler.invoke(target, method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler));
+    }
+}
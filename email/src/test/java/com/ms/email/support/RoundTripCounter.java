@@ -0,0 +1,56 @@
+package com.ms.email.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What a request or message cost in external calls, recorded by {@link CountingDataSource} and
+ * {@link CountingRabbitTemplate}.
+ *
+ * <ul>
+ *     <li>statements: SQL statements executed, each entry of a JDBC batch counted on its own</li>
+ *     <li>round trips: calls that wait for the database (execute*, executeBatch, commit, rollback)</li>
+ *     <li>publishes: AMQP messages sent</li>
+ * </ul>
+ */
+public class RoundTripCounter {
+
+    private final List<String> statements = new ArrayList<>();
+
+    private final List<String> publishes = new ArrayList<>();
+
+    private long roundTrips;
+
+    synchronized void statement(String sql){
+        statements.add(sql);
+    }
+
+    synchronized void roundTrip(){
+        roundTrips++;
+    }
+
+    synchronized void publish(String destination){
+        publishes.add(destination);
+    }
+
+    public synchronized void reset(){
+        statements.clear();
+        publishes.clear();
+        roundTrips = 0;
+    }
+
+    public synchronized Counts counts(){
+        return new Counts(List.copyOf(statements), roundTrips, List.copyOf(publishes));
+    }
+
+    public record Counts(List<String> statementLog, long roundTrips, List<String> publishLog) {
+
+        public int statements(){
+            return statementLog.size();
+        }
+
+        public int publishes(){
+            return publishLog.size();
+        }
+    }
+}
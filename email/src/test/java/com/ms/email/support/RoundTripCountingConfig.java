@@ -0,0 +1,41 @@
+package com.ms.email.support;
+
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.amqp.RabbitTemplateConfigurer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Import into a {@code @SpringBootTest} to count SQL and AMQP traffic: data sources are wrapped
+ * in {@link CountingDataSource} and the RabbitTemplate is replaced by a
+ * {@link CountingRabbitTemplate}. Inject the {@link RoundTripCounter} to read the counts.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class RoundTripCountingConfig {
+
+    @Bean
+    public RoundTripCounter roundTripCounter(){
+        return new RoundTripCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor countingDataSourcePostProcessor(ObjectProvider<RoundTripCounter> counter){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName){
+                return bean instanceof DataSource dataSource ? CountingDataSource.wrap(dataSource, counter.getObject()) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public CountingRabbitTemplate rabbitTemplate(RabbitTemplateConfigurer configurer, ConnectionFactory connectionFactory, RoundTripCounter counter){
+        CountingRabbitTemplate template = new CountingRabbitTemplate(connectionFactory, counter);
+        configurer.configure(template, connectionFactory);
+        return template;
+    }
+}
@@ -0,0 +1,33 @@
+package com.gateway.demo.configs;
+
+import com.gateway.demo.httpclient.BackendHttpClientFactory;
+import com.gateway.demo.httpclient.BackendHttpClientProperties;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Takes the place of the gateway's default {@link HttpClientFactory}, which backs off when one is defined.
+ */
+@Configuration
+@EnableConfigurationProperties(BackendHttpClientProperties.class)
+public class BackendHttpClientConfig {
+
+    @Bean
+    public HttpClientFactory gatewayHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                                      List<HttpClientCustomizer> customizers, HttpClientSslConfigurer sslConfigurer,
+                                                      BackendHttpClientProperties backendProperties,
+                                                      GatewayProperties gatewayProperties, DiscoveryClient discoveryClient){
+        return new BackendHttpClientFactory(properties, serverProperties, sslConfigurer, customizers,
+                backendProperties, gatewayProperties, discoveryClient);
+    }
+}
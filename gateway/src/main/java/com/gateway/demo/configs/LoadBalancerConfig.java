@@ -0,0 +1,17 @@
+package com.gateway.demo.configs;
+
+import com.gateway.demo.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import com.gateway.demo.loadbalancer.LatencyAwareLoadBalancerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Every {@code lb://} route uses the latency-aware balancer over the instances listed under
+ * {@code spring.cloud.discovery.client.simple.instances}.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+@EnableConfigurationProperties(LatencyAwareLoadBalancerProperties.class)
+public class LoadBalancerConfig {
+}
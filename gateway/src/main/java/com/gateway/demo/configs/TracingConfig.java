@@ -0,0 +1,21 @@
+package com.gateway.demo.configs;
+
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exports sampled spans as OTLP JSON lines through the logging system; logback-spring.xml
+ * routes them to a local file, so no tracing backend is needed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "management.tracing.enabled", matchIfMissing = true)
+public class TracingConfig {
+
+    @Bean
+    public SpanExporter otlpJsonLoggingSpanExporter(){
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+}
@@ -0,0 +1,67 @@
+package com.gateway.demo.filters;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.function.Consumer;
+
+/**
+ * Streams the upstream body through to the client while copying it for a callback, which gets
+ * the complete response once the body has ended. Copying stops as soon as the body grows past
+ * {@code maxBytes}; the rest of it is streamed without a copy and {@code onOverflow} is called
+ * instead of the callback.
+ */
+class BodyCapturingResponse extends ServerHttpResponseDecorator {
+
+    private final int maxBytes;
+    private final Consumer<CachedResponse> onComplete;
+    private final Runnable onOverflow;
+
+    BodyCapturingResponse(ServerHttpResponse delegate, int maxBytes, Consumer<CachedResponse> onComplete, Runnable onOverflow){
+        super(delegate);
+        this.maxBytes = maxBytes;
+        this.onComplete = onComplete;
+        this.onOverflow = onOverflow;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body){
+        return Mono.defer(() -> {
+            ByteArrayOutputStream[] copy = {new ByteArrayOutputStream()};
+            Flux<DataBuffer> copied = Flux.from(body)
+                    .map(buffer -> {
+                        ByteArrayOutputStream captured = copy[0];
+                        if (captured == null) {
+                            return buffer;
+                        }
+                        int length = buffer.readableByteCount();
+                        if (captured.size() + length > maxBytes) {
+                            copy[0] = null;
+                            onOverflow.run();
+                            return buffer;
+                        }
+                        byte[] bytes = new byte[length];
+                        int position = buffer.readPosition();
+                        buffer.read(bytes);
+                        buffer.readPosition(position);
+                        captured.writeBytes(bytes);
+                        return buffer;
+                    });
+            return super.writeWith(copied).doOnSuccess(done -> {
+                if (copy[0] != null) {
+                    onComplete.accept(CachedResponse.of(getStatusCode(), getHeaders(), copy[0].toByteArray()));
+                }
+            });
+        });
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body){
+        return writeWith(Flux.from(body).flatMapSequential(p -> p));
+    }
+}
@@ -0,0 +1,64 @@
+package com.gateway.demo.filters;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Response that is never sent anywhere: status, headers and body stay in memory until the caller
+ * decides what to do with them via {@link #toCachedResponse()}. The body is capped at
+ * {@code maxBodyBytes}; larger bodies fail the write with a DataBufferLimitException.
+ */
+class BufferingResponse extends AbstractServerHttpResponse {
+
+    private final int maxBodyBytes;
+    private volatile byte[] body = new byte[0];
+
+    BufferingResponse(DataBufferFactory bufferFactory, int maxBodyBytes){
+        super(bufferFactory);
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    CachedResponse toCachedResponse(){
+        return CachedResponse.of(getStatusCode(), getHeaders(), body);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getNativeResponse(){
+        return (T) this;
+    }
+
+    @Override
+    protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body){
+        return DataBufferUtils.join(Flux.from(body), maxBodyBytes)
+                .doOnNext(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    this.body = bytes;
+                })
+                .then();
+    }
+
+    @Override
+    protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body){
+        return writeWithInternal(Flux.from(body).flatMapSequential(p -> p));
+    }
+
+    @Override
+    protected void applyStatusCode(){
+    }
+
+    @Override
+    protected void applyHeaders(){
+    }
+
+    @Override
+    protected void applyCookies(){
+    }
+}
@@ -0,0 +1,78 @@
+package com.gateway.demo.filters;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Fully buffered copy of an upstream response that can be replayed to any number of clients.
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, long createdAtNanos) {
+
+    private static final List<String> HOP_BY_HOP_HEADERS = List.of(
+            HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING, "Keep-Alive", HttpHeaders.UPGRADE);
+
+    // what a 304 has to repeat from the 200 it stands for (RFC 9110, section 15.4.5)
+    private static final List<String> NOT_MODIFIED_HEADERS = List.of(
+            HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL, HttpHeaders.CONTENT_LOCATION, HttpHeaders.EXPIRES, HttpHeaders.VARY);
+
+    public static CachedResponse of(HttpStatusCode status, HttpHeaders source, byte[] body){
+        HttpHeaders headers = new HttpHeaders();
+        source.forEach((name, values) -> {
+            if (HOP_BY_HOP_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                headers.put(name, List.copyOf(values));
+            }
+        });
+        headers.setContentLength(body.length);
+        return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body, System.nanoTime());
+    }
+
+    public boolean isOk(){
+        return status != null && status.value() == 200;
+    }
+
+    public long ageSeconds(){
+        return (System.nanoTime() - createdAtNanos) / 1_000_000_000L;
+    }
+
+    /**
+     * Whether an If-None-Match value names this response's ETag; weak comparison.
+     */
+    public boolean matches(String ifNoneMatch){
+        String eTag = headers.getETag();
+        if (eTag == null) {
+            return false;
+        }
+        ETag own = ETag.create(eTag);
+        for (ETag tag : ETag.parse(ifNoneMatch)) {
+            if (tag.isWildcard() || tag.tag().equals(own.tag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Mono<Void> writeNotModifiedTo(ServerHttpResponse response){
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        for (String name : NOT_MODIFIED_HEADERS) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                response.getHeaders().put(name, values);
+            }
+        }
+        return response.setComplete();
+    }
+
+    public Mono<Void> writeTo(ServerHttpResponse response){
+        response.setStatusCode(status);
+        response.getHeaders().putAll(headers);
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
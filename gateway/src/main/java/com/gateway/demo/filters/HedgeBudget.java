@@ -0,0 +1,43 @@
+package com.gateway.demo.filters;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps hedges to a percentage of requests: every request deposits {@code percent / 100} of a
+ * token, every hedge withdraws a whole one. The balance is capped so that a quiet period cannot
+ * bank an unbounded burst of hedges.
+ */
+class HedgeBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance = new AtomicLong();
+
+    HedgeBudget(double percent, int maxBurst){
+        this.depositPerRequest = Math.round(percent * TOKEN / 100);
+        this.maxBalance = Math.max(1, maxBurst) * TOKEN;
+    }
+
+    void deposit(){
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + depositPerRequest)));
+    }
+
+    boolean tryWithdraw(){
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
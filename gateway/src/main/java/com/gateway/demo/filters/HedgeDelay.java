@@ -0,0 +1,69 @@
+package com.gateway.demo.filters;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How long to wait before hedging: a recent percentile of primary-attempt latency, read from a
+ * decaying Micrometer histogram. The snapshot is recomputed at most once per
+ * {@link #REFRESH_INTERVAL} by whichever request gets there first; everyone else reads the cached
+ * value. Until {@code minSamples} latencies were recorded the configured initial delay is used.
+ */
+class HedgeDelay {
+
+    static final Duration REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+    private final Timer latency;
+    private final double percentile;
+    private final long minSamples;
+    private final long minNanos;
+    private final long maxNanos;
+    private final AtomicLong nextRefreshNanos;
+    private volatile long delayNanos;
+
+    HedgeDelay(Timer latency, double percentile, long minSamples, Duration initial, Duration min, Duration max){
+        this.latency = latency;
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.minNanos = min.toNanos();
+        this.maxNanos = max.toNanos();
+        this.delayNanos = clamp(initial.toNanos());
+        this.nextRefreshNanos = new AtomicLong(System.nanoTime());
+    }
+
+    Duration current(){
+        long now = System.nanoTime();
+        long next = nextRefreshNanos.get();
+        if (now - next >= 0 && nextRefreshNanos.compareAndSet(next, now + REFRESH_INTERVAL.toNanos())) {
+            refresh();
+        }
+        return Duration.ofNanos(delayNanos);
+    }
+
+    long currentNanos(){
+        return delayNanos;
+    }
+
+    void refresh(){
+        if (latency.count() < minSamples) {
+            return;
+        }
+        for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                long nanos = (long) value.value(TimeUnit.NANOSECONDS);
+                if (nanos > 0) {
+                    delayNanos = clamp(nanos);
+                }
+                return;
+            }
+        }
+    }
+
+    private long clamp(long nanos){
+        return Math.max(minNanos, Math.min(maxNanos, nanos));
+    }
+}
@@ -0,0 +1,299 @@
+package com.gateway.demo.filters;
+
+import com.gateway.demo.loadbalancer.LatencyAwareLoadBalancer;
+import com.gateway.demo.ratelimit.OrderedRequestRateLimiterGatewayFilterFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Hedged reads: if a GET has not been answered after the route's recent {@code percentile}
+ * latency, a second attempt is sent, preferably to a different instance, and whichever answers
+ * first is returned to the client while the other one is cancelled. Each attempt runs the rest of
+ * the chain on its own {@link IsolatedExchange} and is buffered, so only the winner is written.
+ * A hedge answered with a 5xx or 429 does not win; the primary is awaited instead.
+ * Hedges are limited to {@code budget-percent} of requests.
+ *
+ * <p>Only paths matching {@code path-pattern} are hedged, since every attempt is held in memory
+ * until it wins. A response larger than {@code max-body-bytes} is fetched again without hedging
+ * and streamed to the client.
+ *
+ * <pre>
+ * filters:
+ *   - name: Hedging
+ *     args:
+ *       path-pattern: /users/{id}
+ *       percentile: 0.95
+ *       budget-percent: 10
+ * </pre>
+ *
+ * Only for idempotent, small responses; the filter is opt-in per route.
+ */
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+
+    /**
+     * Below coalescing, so a coalesced leader can still be hedged, and below the rate limiter, so
+     * the attempts share the token of the client request.
+     */
+    public static final int ORDER = OrderedRequestRateLimiterGatewayFilterFactory.ORDER + 1;
+
+    private final MeterRegistry meterRegistry;
+
+    public HedgingGatewayFilterFactory(MeterRegistry meterRegistry){
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config){
+        PathPattern pattern = PathPatternParser.defaultInstance.parse(config.getPathPattern());
+        String route = String.valueOf(config.getRouteId());
+        Timer primaryLatency = Timer.builder("gateway.hedging.primary.latency")
+                .tag("route", route)
+                .publishPercentiles(config.getPercentile())
+                .distributionStatisticExpiry(config.getWindow())
+                .distributionStatisticBufferLength(3)
+                .register(meterRegistry);
+        HedgeDelay hedgeDelay = new HedgeDelay(primaryLatency, config.getPercentile(), config.getMinSamples(),
+                config.getInitialDelay(), config.getMinDelay(), config.getMaxDelay());
+        HedgeBudget budget = new HedgeBudget(config.getBudgetPercent(), config.getBudgetBurst());
+        Gauge.builder("gateway.hedging.delay", hedgeDelay, d -> d.currentNanos() / 1e9)
+                .tag("route", route)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Counter unhedged = counter(route, "unhedged");
+        Counter primaryWon = counter(route, "primary_won");
+        Counter hedgeWon = counter(route, "hedge_won");
+        Counter budgetExhausted = counter(route, "budget_exhausted");
+        Counter oversized = counter(route, "oversized");
+        Counter hedgeFailed = counter(route, "hedge_failed");
+        int maxBodyBytes = config.getMaxBodyBytes();
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET
+                    || !pattern.matches(PathContainer.parsePath(exchange.getRequest().getPath().value()))) {
+                return chain.filter(exchange);
+            }
+            budget.deposit();
+            Duration delay = hedgeDelay.current();
+            AtomicBoolean hedged = new AtomicBoolean();
+            AtomicBoolean denied = new AtomicBoolean();
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Sinks.One<Boolean> primaryFailed = Sinks.one();
+
+            IsolatedExchange primaryExchange = isolate(exchange, maxBodyBytes);
+            Mono<Attempt> primary = Mono.defer(() -> {
+                long start = System.nanoTime();
+                return attempt(primaryExchange, chain, false)
+                        .doFinally(signal -> {
+                            // a cancelled primary lost to the hedge; its elapsed time is still a lower bound worth keeping
+                            if (signal != SignalType.ON_ERROR) {
+                                primaryLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            }
+                        });
+            }).doOnError(e -> {
+                primaryError.set(e);
+                primaryFailed.tryEmitValue(true);
+            });
+
+            Mono<Attempt> hedge = Mono.delay(delay)
+                    .takeUntilOther(primaryFailed.asMono())
+                    .filter(tick -> {
+                        if (budget.tryWithdraw()) {
+                            hedged.set(true);
+                            return true;
+                        }
+                        denied.set(true);
+                        return false;
+                    })
+                    .flatMap(tick -> {
+                        IsolatedExchange hedgeExchange = isolate(exchange, maxBodyBytes);
+                        Response<ServiceInstance> chosen = primaryExchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+                        if (chosen != null && chosen.hasServer()) {
+                            hedgeExchange.getAttributes().put(LatencyAwareLoadBalancer.AVOID_INSTANCE_ATTR, chosen.getServer());
+                        }
+                        return attempt(hedgeExchange, chain, true)
+                                .filter(attempt -> {
+                                    // a fast 503 from a shedding instance or a 429 must not beat a primary still on its way
+                                    if (isAcceptable(attempt.response().status())) {
+                                        return true;
+                                    }
+                                    hedgeFailed.increment();
+                                    return false;
+                                });
+                    });
+
+            return Mono.firstWithValue(primary, hedge)
+                    .onErrorMap(e -> primaryError.get() != null ? primaryError.get() : e)
+                    .flatMap(winner -> {
+                        if (!hedged.get()) {
+                            (denied.get() ? budgetExhausted : unhedged).increment();
+                        } else {
+                            (winner.hedge() ? hedgeWon : primaryWon).increment();
+                        }
+                        return winner.response().writeTo(exchange.getResponse());
+                    })
+                    .onErrorResume(DataBufferLimitException.class, e -> {
+                        // the attempts were buffered and are gone; a GET can simply be sent again
+                        oversized.increment();
+                        return chain.filter(exchange);
+                    });
+        }, ORDER);
+    }
+
+    private static IsolatedExchange isolate(ServerWebExchange exchange, int maxBodyBytes){
+        return new IsolatedExchange(exchange, new BufferingResponse(exchange.getResponse().bufferFactory(), maxBodyBytes));
+    }
+
+    private static Mono<Attempt> attempt(IsolatedExchange exchange, GatewayFilterChain chain, boolean hedge){
+        BufferingResponse response = (BufferingResponse) exchange.getResponse();
+        return chain.filter(exchange).then(Mono.fromCallable(() -> new Attempt(response.toCachedResponse(), hedge)));
+    }
+
+    private Counter counter(String route, String outcome){
+        return Counter.builder("gateway.hedging.requests")
+                .tag("route", route)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static boolean isAcceptable(HttpStatusCode status){
+        return status != null && !status.is5xxServerError() && status.value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private record Attempt(CachedResponse response, boolean hedge) {
+    }
+
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+        private String pathPattern = "/users/{id}";
+        private double percentile = 0.95;
+        private Duration window = Duration.ofMinutes(1);
+        private long minSamples = 100;
+        private Duration initialDelay = Duration.ofMillis(100);
+        private Duration minDelay = Duration.ofMillis(10);
+        private Duration maxDelay = Duration.ofSeconds(1);
+        private double budgetPercent = 10;
+        private int budgetBurst = 10;
+        private int maxBodyBytes = 256 * 1024;
+
+        @Override
+        public String getRouteId(){
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId){
+            this.routeId = routeId;
+        }
+
+        public String getPathPattern(){
+            return pathPattern;
+        }
+
+        public void setPathPattern(String pathPattern){
+            this.pathPattern = pathPattern;
+        }
+
+        public double getPercentile(){
+            return percentile;
+        }
+
+        public void setPercentile(double percentile){
+            this.percentile = percentile;
+        }
+
+        public Duration getWindow(){
+            return window;
+        }
+
+        public void setWindow(Duration window){
+            this.window = window;
+        }
+
+        public long getMinSamples(){
+            return minSamples;
+        }
+
+        public void setMinSamples(long minSamples){
+            this.minSamples = minSamples;
+        }
+
+        public Duration getInitialDelay(){
+            return initialDelay;
+        }
+
+        public void setInitialDelay(Duration initialDelay){
+            this.initialDelay = initialDelay;
+        }
+
+        public Duration getMinDelay(){
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay){
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay(){
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay){
+            this.maxDelay = maxDelay;
+        }
+
+        public double getBudgetPercent(){
+            return budgetPercent;
+        }
+
+        public void setBudgetPercent(double budgetPercent){
+            this.budgetPercent = budgetPercent;
+        }
+
+        public int getBudgetBurst(){
+            return budgetBurst;
+        }
+
+        public void setBudgetBurst(int budgetBurst){
+            this.budgetBurst = budgetBurst;
+        }
+
+        public int getMaxBodyBytes(){
+            return maxBodyBytes;
+        }
+
+        public void setMaxBodyBytes(int maxBodyBytes){
+            this.maxBodyBytes = maxBodyBytes;
+        }
+    }
+}
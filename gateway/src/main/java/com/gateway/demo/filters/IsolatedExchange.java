@@ -0,0 +1,36 @@
+package com.gateway.demo.filters;
+
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets the rest of the filter chain run more than once for the same client request. Routing
+ * filters keep their state (chosen instance, routed flag, upstream connection) in exchange
+ * attributes, which {@code mutate()} shares; this exchange starts from a snapshot of them instead
+ * and writes into its own response.
+ */
+class IsolatedExchange extends ServerWebExchangeDecorator {
+
+    private final Map<String, Object> attributes;
+    private final ServerHttpResponse response;
+
+    IsolatedExchange(ServerWebExchange delegate, ServerHttpResponse response){
+        super(delegate);
+        this.attributes = new ConcurrentHashMap<>(delegate.getAttributes());
+        this.response = response;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes(){
+        return attributes;
+    }
+
+    @Override
+    public ServerHttpResponse getResponse(){
+        return response;
+    }
+}
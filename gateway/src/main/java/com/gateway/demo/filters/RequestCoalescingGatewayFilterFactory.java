@@ -0,0 +1,201 @@
+package com.gateway.demo.filters;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight for idempotent reads: while a GET for a given URI is in flight, identical GETs
+ * wait for its response instead of going upstream. Requests are identical when their URI and
+ * their Authorization, Accept and Cookie values are. Followers give up after {@code max-wait} and
+ * fall back to their own upstream call, as they do when the leader fails. Once
+ * {@code max-in-flight-keys} distinct requests are being coalesced, new keys bypass the filter.
+ *
+ * <p>Only paths matching {@code path-pattern} are coalesced, since the leader's body is held in
+ * memory until it has been handed to the followers. A body larger than {@code max-body-bytes} is
+ * streamed to the leader's client without a copy and the followers make their own calls.
+ *
+ * <pre>
+ * filters:
+ *   - name: RequestCoalescing
+ *     args:
+ *       path-pattern: /users/{id}
+ *       max-wait: 2s
+ *       max-in-flight-keys: 10000
+ * </pre>
+ */
+@Component
+public class RequestCoalescingGatewayFilterFactory extends AbstractGatewayFilterFactory<RequestCoalescingGatewayFilterFactory.Config> {
+
+    /**
+     * After the cache, so only misses are coalesced, and before the upstream body is written.
+     */
+    public static final int ORDER = ResourceCacheGatewayFilterFactory.ORDER + 1;
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescingGatewayFilterFactory(MeterRegistry meterRegistry){
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config){
+        PathPattern pattern = PathPatternParser.defaultInstance.parse(config.getPathPattern());
+        Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+        String route = String.valueOf(config.getRouteId());
+        Counter leaders = counter(route, "leader");
+        Counter followers = counter(route, "follower");
+        Counter bypassed = counter(route, "bypass");
+        Counter fallbacks = counter(route, "fallback");
+        Gauge.builder("gateway.coalescing.inflight.keys", inFlight, Map::size)
+                .tag("route", route)
+                .register(meterRegistry);
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET || !pattern.matches(PathContainer.parsePath(request.getPath().value()))) {
+                return chain.filter(exchange);
+            }
+            String key = key(request);
+
+            Sinks.One<CachedResponse> existing = inFlight.get(key);
+            if (existing != null) {
+                followers.increment();
+                return follow(existing, config, exchange, chain, fallbacks);
+            }
+            if (inFlight.size() >= config.getMaxInFlightKeys()) {
+                bypassed.increment();
+                return chain.filter(exchange);
+            }
+
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Sinks.One<CachedResponse> raced = inFlight.putIfAbsent(key, sink);
+            if (raced != null) {
+                followers.increment();
+                return follow(raced, config, exchange, chain, fallbacks);
+            }
+
+            leaders.increment();
+            BodyCapturingResponse capturing = new BodyCapturingResponse(exchange.getResponse(), config.getMaxBodyBytes(), captured -> {
+                inFlight.remove(key, sink);
+                sink.tryEmitValue(captured);
+            }, () -> {
+                // too large to share: release the followers now rather than when the body has ended
+                if (inFlight.remove(key, sink)) {
+                    sink.tryEmitError(new IllegalStateException("Coalesced response exceeds " + config.getMaxBodyBytes() + " bytes"));
+                }
+            });
+            return chain.filter(exchange.mutate().response(capturing).build())
+                    .doFinally(signal -> {
+                        // leader failed, was cancelled or wrote nothing: release followers to go upstream
+                        if (inFlight.remove(key, sink)) {
+                            sink.tryEmitError(new IllegalStateException("Coalesced request ended with " + signal));
+                        }
+                    });
+        }, ORDER);
+    }
+
+    private static Mono<Void> follow(Sinks.One<CachedResponse> leader, Config config, ServerWebExchange exchange,
+                                     GatewayFilterChain chain, Counter fallbacks){
+        return leader.asMono()
+                .timeout(config.getMaxWait())
+                .flatMap(shared -> shared.writeTo(exchange.getResponse()))
+                .onErrorResume(e -> {
+                    fallbacks.increment();
+                    return chain.filter(exchange);
+                });
+    }
+
+    private Counter counter(String route, String role){
+        return Counter.builder("gateway.coalescing.requests")
+                .tag("route", route)
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+
+    private static String key(ServerHttpRequest request){
+        StringBuilder key = new StringBuilder(request.getURI().getRawPath());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        HttpHeaders headers = request.getHeaders();
+        // responses are only shared between callers presenting the same credentials and media type
+        key.append('|').append(headers.getFirst(HttpHeaders.AUTHORIZATION));
+        key.append('|').append(headers.getFirst(HttpHeaders.ACCEPT));
+        // includes the read-your-writes cookie of the user service
+        key.append('|').append(headers.getFirst(HttpHeaders.COOKIE));
+        return key.toString();
+    }
+
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+        private String pathPattern = "/users/{id}";
+        private int maxBodyBytes = 64 * 1024;
+        private Duration maxWait = Duration.ofSeconds(2);
+        private int maxInFlightKeys = 10_000;
+
+        @Override
+        public String getRouteId(){
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId){
+            this.routeId = routeId;
+        }
+
+        public String getPathPattern(){
+            return pathPattern;
+        }
+
+        public void setPathPattern(String pathPattern){
+            this.pathPattern = pathPattern;
+        }
+
+        public int getMaxBodyBytes(){
+            return maxBodyBytes;
+        }
+
+        public void setMaxBodyBytes(int maxBodyBytes){
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        public Duration getMaxWait(){
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait){
+            this.maxWait = maxWait;
+        }
+
+        public int getMaxInFlightKeys(){
+            return maxInFlightKeys;
+        }
+
+        public void setMaxInFlightKeys(int maxInFlightKeys){
+            this.maxInFlightKeys = maxInFlightKeys;
+        }
+    }
+}
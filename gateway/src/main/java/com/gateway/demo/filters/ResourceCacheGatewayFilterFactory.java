@@ -0,0 +1,208 @@
+package com.gateway.demo.filters;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches successful GET responses for a single resource path (by default {@code /users/{id}}) in a
+ * bounded, TTL-based in-memory cache. PUT, PATCH and DELETE requests for the same id that pass
+ * through the gateway evict the entry, and reads that were in flight while a write happened are
+ * not allowed to repopulate it with stale data. Entries are kept per query string and per
+ * Authorization, Accept and Cookie value, so a response is only replayed to a caller that would
+ * have received the same one. A hit whose {@code If-None-Match} names the cached ETag is answered
+ * with 304.
+ *
+ * <pre>
+ * filters:
+ *   - name: ResourceCache
+ *     args:
+ *       path-pattern: /users/{id}
+ *       time-to-live: 30s
+ *       max-entries: 10000
+ * </pre>
+ */
+@Component
+public class ResourceCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResourceCacheGatewayFilterFactory.Config> {
+
+    /**
+     * Must run before {@link NettyWriteResponseFilter}, which writes the upstream body to the
+     * response of the exchange it was given; later filters would never see the body.
+     */
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 4;
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private static final Set<HttpMethod> INVALIDATING_METHODS = Set.of(HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+    private static final int MAX_VARIANTS_PER_RESOURCE = 8;
+
+    public ResourceCacheGatewayFilterFactory(){
+        super(Config.class);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config){
+        PathPattern pattern = PathPatternParser.defaultInstance.parse(config.getPathPattern());
+        long ttlNanos = config.getTimeToLive().toNanos();
+        Cache<String, Map<String, CachedResponse>> entries = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(config.getTimeToLive())
+                .build();
+        // Last write time per id; a miss that started before it must not be stored.
+        Cache<String, Long> invalidations = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(config.getTimeToLive())
+                .build();
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            PathPattern.PathMatchInfo match = pattern.matchAndExtract(PathContainer.parsePath(request.getPath().value()));
+            String id = match == null ? null : match.getUriVariables().get(config.getIdVariable());
+            if (id == null) {
+                return chain.filter(exchange);
+            }
+
+            if (INVALIDATING_METHODS.contains(request.getMethod())) {
+                invalidate(id, entries, invalidations);
+                return chain.filter(exchange).doFinally(signal -> invalidate(id, entries, invalidations));
+            }
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            if (isNoCache(request)) {
+                setCacheStatus(exchange.getResponse(), "BYPASS");
+                return chain.filter(exchange);
+            }
+
+            String variant = variant(request);
+            Map<String, CachedResponse> variants = entries.getIfPresent(id);
+            CachedResponse cached = variants == null ? null : variants.get(variant);
+            if (cached != null && System.nanoTime() - cached.createdAtNanos() < ttlNanos) {
+                ServerHttpResponse response = exchange.getResponse();
+                setCacheStatus(response, "HIT");
+                response.getHeaders().set(HttpHeaders.AGE, Long.toString(cached.ageSeconds()));
+                String ifNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+                if (ifNoneMatch != null && cached.matches(ifNoneMatch)) {
+                    return cached.writeNotModifiedTo(response);
+                }
+                return cached.writeTo(response);
+            }
+
+            long startedAt = System.nanoTime();
+            ServerHttpResponse capturing = new BodyCapturingResponse(exchange.getResponse(), config.getMaxBodyBytes(), captured -> {
+                Long invalidatedAt = invalidations.getIfPresent(id);
+                if (captured.isOk() && (invalidatedAt == null || invalidatedAt < startedAt)) {
+                    Map<String, CachedResponse> stored = entries.get(id, key -> new ConcurrentHashMap<>());
+                    if (stored.size() < MAX_VARIANTS_PER_RESOURCE || stored.containsKey(variant)) {
+                        stored.put(variant, captured);
+                    }
+                    // a write may have landed while storing; drop the entry rather than serve it stale
+                    Long raced = invalidations.getIfPresent(id);
+                    if (raced != null && raced >= startedAt) {
+                        entries.invalidate(id);
+                    }
+                }
+            }, () -> {
+                // too large to cache, streamed through as it is
+            });
+            setCacheStatus(capturing, "MISS");
+            return chain.filter(exchange.mutate().response(capturing).build());
+        }, ORDER);
+    }
+
+    private static void invalidate(String id, Cache<String, Map<String, CachedResponse>> entries, Cache<String, Long> invalidations){
+        invalidations.put(id, System.nanoTime());
+        entries.invalidate(id);
+    }
+
+    private static String variant(ServerHttpRequest request){
+        String query = request.getURI().getRawQuery();
+        HttpHeaders headers = request.getHeaders();
+        // the user service answers differently per caller (and per read-your-writes cookie)
+        return (query == null ? "" : query)
+                + '|' + headers.getFirst(HttpHeaders.AUTHORIZATION)
+                + '|' + headers.getFirst(HttpHeaders.ACCEPT)
+                + '|' + headers.getFirst(HttpHeaders.COOKIE);
+    }
+
+    private static boolean isNoCache(ServerHttpRequest request){
+        String cacheControl = request.getHeaders().getCacheControl();
+        return cacheControl != null && (cacheControl.contains(CacheControl.noCache().getHeaderValue())
+                || cacheControl.contains(CacheControl.noStore().getHeaderValue()));
+    }
+
+    private static void setCacheStatus(ServerHttpResponse response, String status){
+        response.beforeCommit(() -> {
+            response.getHeaders().set(CACHE_STATUS_HEADER, status);
+            return Mono.empty();
+        });
+    }
+
+    public static class Config {
+
+        private String pathPattern = "/users/{id}";
+        private String idVariable = "id";
+        private Duration timeToLive = Duration.ofSeconds(30);
+        private long maxEntries = 10_000;
+        private int maxBodyBytes = 64 * 1024;
+
+        public String getPathPattern(){
+            return pathPattern;
+        }
+
+        public void setPathPattern(String pathPattern){
+            this.pathPattern = pathPattern;
+        }
+
+        public String getIdVariable(){
+            return idVariable;
+        }
+
+        public void setIdVariable(String idVariable){
+            this.idVariable = idVariable;
+        }
+
+        public Duration getTimeToLive(){
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive){
+            this.timeToLive = timeToLive;
+        }
+
+        public long getMaxEntries(){
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries){
+            this.maxEntries = maxEntries;
+        }
+
+        public int getMaxBodyBytes(){
+            return maxBodyBytes;
+        }
+
+        public void setMaxBodyBytes(int maxBodyBytes){
+            this.maxBodyBytes = maxBodyBytes;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.gateway.demo.httpclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.transport.AddressUtils;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces Spring Cloud Gateway's single shared pool with one pool per backend address, sized from
+ * {@link BackendHttpClientProperties}. Reactor Netty already keeps a pool per remote address; this
+ * only gives the addresses behind a configured route their own limits. Addresses are resolved once
+ * at startup from the route URIs and, for {@code lb://} routes, the discovery client.
+ * <p>
+ * Pool metrics are always on; pending-acquire time is published as
+ * {@code reactor.netty.connection.provider.pending.connections.time} (HTTP/1.1) and
+ * {@code reactor.netty.connection.provider.pending.streams.time} (h2c).
+ */
+public class BackendHttpClientFactory extends HttpClientFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackendHttpClientFactory.class);
+
+    private final BackendHttpClientProperties backendProperties;
+    private final GatewayProperties gatewayProperties;
+    private final DiscoveryClient discoveryClient;
+
+    public BackendHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                    HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                    BackendHttpClientProperties backendProperties, GatewayProperties gatewayProperties,
+                                    DiscoveryClient discoveryClient){
+        super(properties, serverProperties, sslConfigurer, customizers);
+        this.backendProperties = backendProperties;
+        this.gatewayProperties = gatewayProperties;
+        this.discoveryClient = discoveryClient;
+    }
+
+    @Override
+    protected HttpClient createInstance(){
+        HttpClient httpClient = super.createInstance();
+        if (backendProperties.getProtocol() == BackendHttpClientProperties.Protocol.H2C) {
+            return httpClient.protocol(HttpProtocol.H2C);
+        }
+        return httpClient.protocol(HttpProtocol.HTTP11);
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties){
+        BackendHttpClientProperties.Pool defaults = backendProperties.getPool().withDefaults(BackendHttpClientProperties.Pool.defaults());
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(properties.getPool().getName());
+        configure(builder, defaults);
+        backendAddresses().forEach((address, routeId) -> {
+            BackendHttpClientProperties.Pool pool = backendProperties.getRoutes().get(routeId).withDefaults(defaults);
+            logger.info("Dedicated connection pool for route {} backend {}: max-connections={}", routeId, address, pool.getMaxConnections());
+            builder.forRemoteHost(address, spec -> configure(spec, pool));
+        });
+        return builder.build();
+    }
+
+    private void configure(ConnectionProvider.ConnectionPoolSpec<?> spec, BackendHttpClientProperties.Pool pool){
+        spec.maxConnections(pool.getMaxConnections())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictionInterval())
+                .metrics(true);
+        if (backendProperties.getProtocol() == BackendHttpClientProperties.Protocol.H2C) {
+            Http2AllocationStrategy.Builder strategy = Http2AllocationStrategy.builder()
+                    .maxConnections(pool.getMaxConnections())
+                    .minConnections(Math.min(pool.getMinConnections(), pool.getMaxConnections()));
+            if (pool.getMaxConcurrentStreams() > 0) {
+                strategy.maxConcurrentStreams(pool.getMaxConcurrentStreams());
+            }
+            spec.allocationStrategy(strategy.build());
+        }
+    }
+
+    /**
+     * Backend address to the id of the route it serves, for routes with their own pool settings.
+     */
+    Map<InetSocketAddress, String> backendAddresses(){
+        Map<InetSocketAddress, String> addresses = new LinkedHashMap<>();
+        for (RouteDefinition route : gatewayProperties.getRoutes()) {
+            if (!backendProperties.getRoutes().containsKey(route.getId())) {
+                continue;
+            }
+            URI uri = route.getUri();
+            if ("lb".equals(uri.getScheme())) {
+                for (ServiceInstance instance : discoveryClient.getInstances(uri.getHost())) {
+                    addresses.putIfAbsent(AddressUtils.createUnresolved(instance.getHost(), instance.getPort()), route.getId());
+                }
+            } else if (uri.getHost() != null) {
+                int port = uri.getPort() != -1 ? uri.getPort() : ("https".equals(uri.getScheme()) ? 443 : 80);
+                addresses.putIfAbsent(AddressUtils.createUnresolved(uri.getHost(), port), route.getId());
+            }
+        }
+        return addresses;
+    }
+}
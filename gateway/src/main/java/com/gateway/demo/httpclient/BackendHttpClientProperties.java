@@ -0,0 +1,189 @@
+package com.gateway.demo.httpclient;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Protocol and connection pools used by the gateway to reach backends. {@code pool} applies to
+ * every backend; entries under {@code routes} override individual settings for the instances
+ * behind one route id.
+ *
+ * <pre>
+ * gateway:
+ *   backend-http:
+ *     protocol: h2c
+ *     pool:
+ *       max-connections: 200
+ *     routes:
+ *       user:
+ *         max-connections: 16
+ *         max-idle-time: 20s
+ * </pre>
+ */
+@ConfigurationProperties("gateway.backend-http")
+public class BackendHttpClientProperties {
+
+    public enum Protocol {
+        /** One request per connection at a time. */
+        HTTP11,
+        /** Cleartext HTTP/2 with prior knowledge; requests are multiplexed as streams. */
+        H2C
+    }
+
+    private Protocol protocol = Protocol.HTTP11;
+
+    private Pool pool = Pool.defaults();
+
+    private Map<String, Pool> routes = new LinkedHashMap<>();
+
+    public Protocol getProtocol(){
+        return protocol;
+    }
+
+    public void setProtocol(Protocol protocol){
+        this.protocol = protocol;
+    }
+
+    public Pool getPool(){
+        return pool;
+    }
+
+    public void setPool(Pool pool){
+        this.pool = pool;
+    }
+
+    public Map<String, Pool> getRoutes(){
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Pool> routes){
+        this.routes = routes;
+    }
+
+    /**
+     * Unset (null) values fall back to the global pool.
+     */
+    public static class Pool {
+
+        /**
+         * HTTP/1.1: connections per backend. h2c: upper bound of multiplexed connections per backend.
+         */
+        private Integer maxConnections;
+
+        /**
+         * h2c only: connections kept open per backend even when idle.
+         */
+        private Integer minConnections;
+
+        /**
+         * h2c only: streams per connection; -1 uses the limit the backend advertises.
+         */
+        private Long maxConcurrentStreams;
+
+        private Duration maxIdleTime;
+
+        private Duration maxLifeTime;
+
+        private Duration evictionInterval;
+
+        private Duration pendingAcquireTimeout;
+
+        /**
+         * Requests allowed to wait for a connection; -1 is unbounded.
+         */
+        private Integer pendingAcquireMaxCount;
+
+        static Pool defaults(){
+            Pool pool = new Pool();
+            pool.maxConnections = 500;
+            pool.minConnections = 1;
+            pool.maxConcurrentStreams = -1L;
+            pool.maxIdleTime = Duration.ofSeconds(30);
+            pool.maxLifeTime = Duration.ofMinutes(5);
+            pool.evictionInterval = Duration.ofSeconds(15);
+            pool.pendingAcquireTimeout = Duration.ofSeconds(5);
+            pool.pendingAcquireMaxCount = 1000;
+            return pool;
+        }
+
+        Pool withDefaults(Pool defaults){
+            Pool merged = new Pool();
+            merged.maxConnections = maxConnections != null ? maxConnections : defaults.maxConnections;
+            merged.minConnections = minConnections != null ? minConnections : defaults.minConnections;
+            merged.maxConcurrentStreams = maxConcurrentStreams != null ? maxConcurrentStreams : defaults.maxConcurrentStreams;
+            merged.maxIdleTime = maxIdleTime != null ? maxIdleTime : defaults.maxIdleTime;
+            merged.maxLifeTime = maxLifeTime != null ? maxLifeTime : defaults.maxLifeTime;
+            merged.evictionInterval = evictionInterval != null ? evictionInterval : defaults.evictionInterval;
+            merged.pendingAcquireTimeout = pendingAcquireTimeout != null ? pendingAcquireTimeout : defaults.pendingAcquireTimeout;
+            merged.pendingAcquireMaxCount = pendingAcquireMaxCount != null ? pendingAcquireMaxCount : defaults.pendingAcquireMaxCount;
+            return merged;
+        }
+
+        public Integer getMaxConnections(){
+            return maxConnections;
+        }
+
+        public void setMaxConnections(Integer maxConnections){
+            this.maxConnections = maxConnections;
+        }
+
+        public Integer getMinConnections(){
+            return minConnections;
+        }
+
+        public void setMinConnections(Integer minConnections){
+            this.minConnections = minConnections;
+        }
+
+        public Long getMaxConcurrentStreams(){
+            return maxConcurrentStreams;
+        }
+
+        public void setMaxConcurrentStreams(Long maxConcurrentStreams){
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        public Duration getMaxIdleTime(){
+            return maxIdleTime;
+        }
+
+        public void setMaxIdleTime(Duration maxIdleTime){
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        public Duration getMaxLifeTime(){
+            return maxLifeTime;
+        }
+
+        public void setMaxLifeTime(Duration maxLifeTime){
+            this.maxLifeTime = maxLifeTime;
+        }
+
+        public Duration getEvictionInterval(){
+            return evictionInterval;
+        }
+
+        public void setEvictionInterval(Duration evictionInterval){
+            this.evictionInterval = evictionInterval;
+        }
+
+        public Duration getPendingAcquireTimeout(){
+            return pendingAcquireTimeout;
+        }
+
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout){
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+        }
+
+        public Integer getPendingAcquireMaxCount(){
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(Integer pendingAcquireMaxCount){
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.gateway.demo.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Passive health and load signals for one backend instance. All fields are updated with atomics
+ * so that request threads never block on each other.
+ */
+public class InstanceStats {
+
+    private static final double SLOW_START_MIN_WEIGHT = 0.1;
+    private static final long NEVER_EJECTED = Long.MIN_VALUE;
+
+    private final LatencyAwareLoadBalancerProperties properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong ewmaBits = new AtomicLong(Double.doubleToRawLongBits(0));
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger consecutiveEjections = new AtomicInteger();
+    private volatile long lastSampleNanos;
+    private volatile long ejectedUntilNanos = NEVER_EJECTED;
+    private volatile long availableSinceNanos = NEVER_EJECTED;
+
+    InstanceStats(LatencyAwareLoadBalancerProperties properties){
+        this.properties = properties;
+    }
+
+    public void requestStarted(){
+        inFlight.incrementAndGet();
+    }
+
+    public void requestCancelled(){
+        inFlight.decrementAndGet();
+    }
+
+    public void requestSucceeded(long latencyNanos, long nowNanos){
+        inFlight.decrementAndGet();
+        recordLatency(latencyNanos, nowNanos);
+        consecutiveFailures.set(0);
+        if (isAvailable(nowNanos)) {
+            consecutiveEjections.set(0);
+        }
+    }
+
+    public void requestFailed(long latencyNanos, long nowNanos){
+        inFlight.decrementAndGet();
+        recordLatency(latencyNanos, nowNanos);
+        if (consecutiveFailures.incrementAndGet() >= properties.getFailureThreshold() && isAvailable(nowNanos)) {
+            consecutiveFailures.set(0);
+            int ejections = consecutiveEjections.incrementAndGet();
+            long base = properties.getEjectionTime().toNanos();
+            long duration = Math.min(properties.getMaxEjectionTime().toNanos(), base << Math.min(ejections - 1, 20));
+            ejectedUntilNanos = nowNanos + duration;
+            availableSinceNanos = ejectedUntilNanos;
+        }
+    }
+
+    /**
+     * Peak-sensitive EWMA: a slower sample replaces the average at once, faster ones decay into it.
+     */
+    private void recordLatency(long latencyNanos, long nowNanos){
+        long elapsed = Math.max(0, nowNanos - lastSampleNanos);
+        double weight = Math.exp(-(double) elapsed / properties.getDecay().toNanos());
+        lastSampleNanos = nowNanos;
+        while (true) {
+            long bits = ewmaBits.get();
+            double current = Double.longBitsToDouble(bits);
+            double next = latencyNanos > current ? latencyNanos : current * weight + latencyNanos * (1 - weight);
+            if (ewmaBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    public boolean isAvailable(long nowNanos){
+        return ejectedUntilNanos == NEVER_EJECTED || nowNanos - ejectedUntilNanos >= 0;
+    }
+
+    /**
+     * Selection cost: expected latency times queued work, discounted while slow-starting.
+     */
+    public double cost(long nowNanos){
+        double latency = Math.max(ewmaNanos(), properties.getMinLatency().toNanos());
+        return latency * (inFlight.get() + 1) / weight(nowNanos);
+    }
+
+    double weight(long nowNanos){
+        long window = properties.getSlowStart().toNanos();
+        long sinceAvailable = nowNanos - availableSinceNanos;
+        if (availableSinceNanos == NEVER_EJECTED || window <= 0 || sinceAvailable >= window) {
+            return 1.0;
+        }
+        double ramp = Math.max(0, (double) sinceAvailable / window);
+        return SLOW_START_MIN_WEIGHT + (1 - SLOW_START_MIN_WEIGHT) * ramp;
+    }
+
+    public double ewmaNanos(){
+        return Double.longBitsToDouble(ewmaBits.get());
+    }
+
+    public int inFlight(){
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,28 @@
+package com.gateway.demo.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared between {@link LoadBalancerStatsFilter}, which feeds it, and every
+ * {@link LatencyAwareLoadBalancer}, which reads it.
+ */
+@Component
+public class InstanceStatsRegistry {
+
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final LatencyAwareLoadBalancerProperties properties;
+
+    public InstanceStatsRegistry(LatencyAwareLoadBalancerProperties properties){
+        this.properties = properties;
+    }
+
+    public InstanceStats get(ServiceInstance instance){
+        String key = instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+        InstanceStats existing = stats.get(key);
+        return existing != null ? existing : stats.computeIfAbsent(key, k -> new InstanceStats(properties));
+    }
+}
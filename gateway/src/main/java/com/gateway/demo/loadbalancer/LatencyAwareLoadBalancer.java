@@ -0,0 +1,115 @@
+package com.gateway.demo.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices over the statically configured instances: two random candidates are
+ * compared by {@link InstanceStats#cost(long)} (EWMA latency x in-flight requests, reduced weight
+ * while slow-starting) and the cheaper one wins. Ejected instances are skipped unless every
+ * instance is ejected, in which case all of them are considered again. A request may name an
+ * instance to avoid (see {@link #AVOID_INSTANCE_ATTR}); it is skipped whenever another one is left.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    /**
+     * Exchange attribute holding a {@link ServiceInstance} that should not be picked, e.g. the
+     * instance a hedged request is already waiting on.
+     */
+    public static final String AVOID_INSTANCE_ATTR = LatencyAwareLoadBalancer.class.getName() + ".avoidInstance";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final InstanceStatsRegistry registry;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                    InstanceStatsRegistry registry){
+        this.supplierProvider = supplierProvider;
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request){
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        ServiceInstance avoid = avoidedInstance(request);
+        return supplier.get(request).next().map(instances -> select(instances, avoid, System.nanoTime()));
+    }
+
+    Response<ServiceInstance> select(List<ServiceInstance> instances, long nowNanos){
+        return select(instances, null, nowNanos);
+    }
+
+    Response<ServiceInstance> select(List<ServiceInstance> instances, ServiceInstance avoid, long nowNanos){
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        List<ServiceInstance> candidates = without(available(instances, nowNanos), avoid);
+        int size = candidates.size();
+        if (size == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return new DefaultResponse(registry.get(a).cost(nowNanos) <= registry.get(b).cost(nowNanos) ? a : b);
+    }
+
+    private static ServiceInstance avoidedInstance(Request request){
+        if (request != null && request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null) {
+            Map<String, Object> attributes = context.getClientRequest().getAttributes();
+            if (attributes != null && attributes.get(AVOID_INSTANCE_ATTR) instanceof ServiceInstance avoid) {
+                return avoid;
+            }
+        }
+        return null;
+    }
+
+    private static List<ServiceInstance> without(List<ServiceInstance> candidates, ServiceInstance avoid){
+        if (avoid == null || candidates.size() < 2) {
+            return candidates;
+        }
+        List<ServiceInstance> remaining = new ArrayList<>(candidates.size());
+        for (ServiceInstance candidate : candidates) {
+            if (!(candidate.getHost().equals(avoid.getHost()) && candidate.getPort() == avoid.getPort())) {
+                remaining.add(candidate);
+            }
+        }
+        return remaining.isEmpty() ? candidates : remaining;
+    }
+
+    private List<ServiceInstance> available(List<ServiceInstance> instances, long nowNanos){
+        List<ServiceInstance> available = null;
+        for (int i = 0; i < instances.size(); i++) {
+            ServiceInstance instance = instances.get(i);
+            if (!registry.get(instance).isAvailable(nowNanos)) {
+                if (available == null) {
+                    available = new ArrayList<>(instances.subList(0, i));
+                }
+            } else if (available != null) {
+                available.add(instance);
+            }
+        }
+        if (available == null) {
+            return instances;
+        }
+        return available.isEmpty() ? instances : available;
+    }
+}
@@ -0,0 +1,21 @@
+package com.gateway.demo.loadbalancer;
+
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-client load balancer configuration. Deliberately not a {@code @Configuration}: it is only
+ * loaded into the child context that Spring Cloud LoadBalancer creates for each service id.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    public LatencyAwareLoadBalancer latencyAwareLoadBalancer(Environment environment,
+                                                             LoadBalancerClientFactory clientFactory,
+                                                             InstanceStatsRegistry registry){
+        String serviceId = LoadBalancerClientFactory.getName(environment);
+        return new LatencyAwareLoadBalancer(clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), registry);
+    }
+}
@@ -0,0 +1,84 @@
+package com.gateway.demo.loadbalancer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("gateway.loadbalancer")
+public class LatencyAwareLoadBalancerProperties {
+
+    /**
+     * Time constant of the latency EWMA; older samples lose weight exponentially.
+     */
+    private Duration decay = Duration.ofSeconds(10);
+
+    /**
+     * Latency assumed for instances without samples, and the floor for every instance.
+     */
+    private Duration minLatency = Duration.ofMillis(1);
+
+    /**
+     * Consecutive failures (connection errors or 5xx) before an instance is ejected.
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * First ejection period; each further consecutive ejection doubles it up to maxEjectionTime.
+     */
+    private Duration ejectionTime = Duration.ofSeconds(30);
+
+    private Duration maxEjectionTime = Duration.ofMinutes(5);
+
+    /**
+     * Window over which a readmitted instance ramps from 10% to full weight.
+     */
+    private Duration slowStart = Duration.ofSeconds(30);
+
+    public Duration getDecay(){
+        return decay;
+    }
+
+    public void setDecay(Duration decay){
+        this.decay = decay;
+    }
+
+    public Duration getMinLatency(){
+        return minLatency;
+    }
+
+    public void setMinLatency(Duration minLatency){
+        this.minLatency = minLatency;
+    }
+
+    public int getFailureThreshold(){
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold){
+        this.failureThreshold = failureThreshold;
+    }
+
+    public Duration getEjectionTime(){
+        return ejectionTime;
+    }
+
+    public void setEjectionTime(Duration ejectionTime){
+        this.ejectionTime = ejectionTime;
+    }
+
+    public Duration getMaxEjectionTime(){
+        return maxEjectionTime;
+    }
+
+    public void setMaxEjectionTime(Duration maxEjectionTime){
+        this.maxEjectionTime = maxEjectionTime;
+    }
+
+    public Duration getSlowStart(){
+        return slowStart;
+    }
+
+    public void setSlowStart(Duration slowStart){
+        this.slowStart = slowStart;
+    }
+}
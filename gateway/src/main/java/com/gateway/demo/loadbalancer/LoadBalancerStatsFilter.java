@@ -0,0 +1,61 @@
+package com.gateway.demo.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Runs right after the load balancer has picked an instance and records in-flight count,
+ * latency and outcome for it. Unlike the load balancer lifecycle callbacks it also sees
+ * cancellations, so in-flight counts cannot leak.
+ */
+@Component
+public class LoadBalancerStatsFilter implements GlobalFilter, Ordered {
+
+    private final InstanceStatsRegistry registry;
+
+    public LoadBalancerStatsFilter(InstanceStatsRegistry registry){
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain){
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+        InstanceStats stats = registry.get(lbResponse.getServer());
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            stats.requestStarted();
+            return chain.filter(exchange).doFinally(signal -> {
+                long now = System.nanoTime();
+                if (signal == SignalType.CANCEL) {
+                    stats.requestCancelled();
+                    return;
+                }
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                if (signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError())) {
+                    stats.requestFailed(now - start, now);
+                } else {
+                    stats.requestSucceeded(now - start, now);
+                }
+            });
+        });
+    }
+
+    @Override
+    public int getOrder(){
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
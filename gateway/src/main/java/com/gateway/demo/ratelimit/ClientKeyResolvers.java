@@ -0,0 +1,49 @@
+package com.gateway.demo.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Client keys selectable per route through {@code key-resolver: "#{@<bean>}"}. An empty key is
+ * rejected by {@code RequestRateLimiter} unless {@code deny-empty-key} is turned off.
+ */
+@Configuration
+public class ClientKeyResolvers {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    /**
+     * Remote address, taking the last {@code gateway.rate-limit.trusted-proxies} hops of
+     * X-Forwarded-For into account.
+     */
+    @Bean
+    @Primary
+    public KeyResolver ipKeyResolver(@Value("${gateway.rate-limit.trusted-proxies:1}") int trustedProxies){
+        XForwardedRemoteAddressResolver resolver = XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxies);
+        return exchange -> {
+            InetSocketAddress address = resolver.resolve(exchange);
+            return address == null ? Mono.empty() : Mono.just(address.getAddress() != null
+                    ? address.getAddress().getHostAddress() : address.getHostString());
+        };
+    }
+
+    @Bean
+    public KeyResolver apiKeyResolver(){
+        return exchange -> Mono.justOrEmpty(exchange.getRequest().getHeaders().getFirst(API_KEY_HEADER));
+    }
+
+    /**
+     * Arbitrary client identification header, {@code X-Client-Id} by default.
+     */
+    @Bean
+    public KeyResolver headerKeyResolver(@Value("${gateway.rate-limit.key-header:X-Client-Id}") String header){
+        return exchange -> Mono.justOrEmpty(exchange.getRequest().getHeaders().getFirst(header));
+    }
+}
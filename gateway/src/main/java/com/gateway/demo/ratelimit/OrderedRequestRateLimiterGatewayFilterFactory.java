@@ -0,0 +1,39 @@
+package com.gateway.demo.ratelimit;
+
+import com.gateway.demo.filters.HedgingGatewayFilterFactory;
+import com.gateway.demo.filters.RequestCoalescingGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code RequestRateLimiter} with a fixed place in the route: after the cache and coalescing, so
+ * hits and coalesced followers cost no token, and before hedging, so the attempts of one hedged
+ * request share the token of the client request instead of taking one each. A plain route filter
+ * is ordered by its position in the route and would run inside every attempt.
+ *
+ * <pre>
+ * filters:
+ *   - name: OrderedRequestRateLimiter
+ *     args:
+ *       rate-limiter: "#{@tokenBucketRateLimiter}"
+ *       key-resolver: "#{@ipKeyResolver}"
+ * </pre>
+ */
+@Component
+public class OrderedRequestRateLimiterGatewayFilterFactory extends RequestRateLimiterGatewayFilterFactory {
+
+    public static final int ORDER = RequestCoalescingGatewayFilterFactory.ORDER + 1;
+
+    public OrderedRequestRateLimiterGatewayFilterFactory(RateLimiter<?> defaultRateLimiter, KeyResolver defaultKeyResolver){
+        super(defaultRateLimiter, defaultKeyResolver);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config){
+        return new OrderedGatewayFilter(super.apply(config), ORDER);
+    }
+}
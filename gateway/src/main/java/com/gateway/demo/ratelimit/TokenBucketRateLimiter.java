@@ -0,0 +1,165 @@
+package com.gateway.demo.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory token bucket for {@code RequestRateLimiter}, so routes can be limited without Redis.
+ * Each client key holds a single {@link AtomicLong} with its theoretical arrival time (GCRA), which
+ * is equivalent to a token bucket but is updated with one CAS and no locks. Buckets that have
+ * been full for longer than the idle timeout are evicted by a periodic sweep.
+ *
+ * <pre>
+ * filters:
+ *   - name: RequestRateLimiter
+ *     args:
+ *       rate-limiter: "#{@tokenBucketRateLimiter}"
+ *       key-resolver: "#{@ipKeyResolver}"
+ *       token-bucket-rate-limiter.replenish-rate: 50
+ *       token-bucket-rate-limiter.burst-capacity: 100
+ * </pre>
+ */
+@Component
+public class TokenBucketRateLimiter extends AbstractRateLimiter<TokenBucketRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "token-bucket-rate-limiter";
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, Map<String, AtomicLong>> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+    private final Config defaultConfig = new Config();
+
+    @Value("${gateway.rate-limit.idle-timeout:5m}")
+    private Duration idleTimeout = Duration.ofMinutes(5);
+
+    @Autowired
+    public TokenBucketRateLimiter(ConfigurationService configurationService){
+        this(configurationService, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(ConfigurationService configurationService, LongSupplier nanoClock){
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id){
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        long interval = NANOS_PER_SECOND / Math.max(1, config.getReplenishRate());
+        long cost = interval * config.getRequestedTokens();
+        long capacity = interval * config.getBurstCapacity();
+
+        AtomicLong bucket = bucketFor(routeId, id);
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + cost;
+            long backlog = next - now;
+            if (backlog > capacity) {
+                long retryAfterNanos = backlog - capacity;
+                long retryAfterSeconds = Math.max(1, (retryAfterNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+                return Mono.just(new Response(false, headers(config, 0, retryAfterSeconds)));
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                long remaining = (capacity - backlog) / interval;
+                return Mono.just(new Response(true, headers(config, remaining, -1)));
+            }
+        }
+    }
+
+    private AtomicLong bucketFor(String routeId, String id){
+        Map<String, AtomicLong> routeBuckets = buckets.get(routeId);
+        if (routeBuckets == null) {
+            routeBuckets = buckets.computeIfAbsent(routeId, key -> new ConcurrentHashMap<>());
+        }
+        AtomicLong bucket = routeBuckets.get(id);
+        if (bucket == null) {
+            // a fresh bucket starts full: its theoretical arrival time lies in the past
+            bucket = routeBuckets.computeIfAbsent(id, key -> new AtomicLong(Long.MIN_VALUE / 2));
+        }
+        return bucket;
+    }
+
+    private static Map<String, String> headers(Config config, long remaining, long retryAfterSeconds){
+        if (retryAfterSeconds < 0) {
+            return Map.of(REMAINING_HEADER, Long.toString(remaining),
+                    REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()),
+                    BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+        }
+        return Map.of(REMAINING_HEADER, "0",
+                REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()),
+                BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()),
+                HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    /**
+     * Drops buckets that have been full for longer than the idle timeout; such a client is
+     * indistinguishable from a new one, so no state is lost.
+     */
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.eviction-interval:60s}")
+    public void evictIdleBuckets(){
+        long idleBefore = nanoClock.getAsLong() - idleTimeout.toNanos();
+        buckets.values().forEach(routeBuckets ->
+                routeBuckets.entrySet().removeIf(entry -> entry.getValue().get() < idleBefore));
+    }
+
+    int trackedKeys(){
+        return buckets.values().stream().mapToInt(Map::size).sum();
+    }
+
+    void setIdleTimeout(Duration idleTimeout){
+        this.idleTimeout = idleTimeout;
+    }
+
+    public static class Config {
+
+        private int replenishRate = 100;
+        private int burstCapacity = 200;
+        private int requestedTokens = 1;
+
+        public int getReplenishRate(){
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate){
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity(){
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(int burstCapacity){
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens(){
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens){
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.gateway.demo.filters;
+
+import com.gateway.demo.loadbalancer.LatencyAwareLoadBalancer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgingGatewayFilterFactoryTest {
+
+    private final ServiceInstance firstInstance = new DefaultServiceInstance("user-1", "user", "user-1", 8081, false);
+
+    private MeterRegistry meterRegistry;
+    private HedgingGatewayFilterFactory.Config config;
+    private AtomicInteger upstreamCalls;
+    private AtomicBoolean primaryCancelled;
+    private List<Object> avoidedInstances;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        config = new HedgingGatewayFilterFactory.Config();
+        config.setRouteId("user");
+        config.setInitialDelay(Duration.ofMillis(20));
+        config.setMinDelay(Duration.ofMillis(1));
+        config.setBudgetPercent(100);
+        upstreamCalls = new AtomicInteger();
+        primaryCancelled = new AtomicBoolean();
+        avoidedInstances = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * The first call behaves like a load balanced call to a stalled instance; later calls answer at once.
+     */
+    private GatewayFilterChain upstream(Duration firstCallLatency){
+        return upstream(firstCallLatency, HttpStatus.OK);
+    }
+
+    /**
+     * As above, with the later calls answered by {@code laterStatus}.
+     */
+    private GatewayFilterChain upstream(Duration firstCallLatency, HttpStatus laterStatus){
+        return exchange -> Mono.defer(() -> {
+            int call = upstreamCalls.incrementAndGet();
+            if (call == 1) {
+                exchange.getAttributes().put(GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(firstInstance));
+            } else {
+                avoidedInstances.add(exchange.getAttribute(LatencyAwareLoadBalancer.AVOID_INSTANCE_ATTR));
+            }
+            Mono<Long> latency = call == 1 ? Mono.delay(firstCallLatency).doOnCancel(() -> primaryCancelled.set(true)) : Mono.just(0L);
+            return latency.then(Mono.defer(() -> {
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(call == 1 ? HttpStatus.OK : laterStatus);
+                byte[] body = ("call-" + call).getBytes(StandardCharsets.UTF_8);
+                return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+            }));
+        });
+    }
+
+    private MockServerWebExchange get(GatewayFilter filter, GatewayFilterChain chain){
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/users/42").build());
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    private double requests(String outcome){
+        return meterRegistry.get("gateway.hedging.requests").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void shouldAnswerFromHedgeAndCancelSlowPrimary(){
+        GatewayFilter filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+
+        MockServerWebExchange exchange = get(filter, upstream(Duration.ofSeconds(2)));
+
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals("call-2", exchange.getResponse().getBodyAsString().block());
+        assertEquals(2, upstreamCalls.get());
+        assertTrue(primaryCancelled.get());
+        assertEquals(List.of(firstInstance), avoidedInstances, "hedge must steer away from the primary's instance");
+        assertNull(exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR), "attempt state must not leak into the client exchange");
+        assertEquals(1, requests("hedge_won"));
+    }
+
+    @Test
+    void shouldWaitForPrimaryWhenHedgeIsShed(){
+        GatewayFilter filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+
+        MockServerWebExchange exchange = get(filter, upstream(Duration.ofMillis(200), HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals("call-1", exchange.getResponse().getBodyAsString().block());
+        assertEquals(2, upstreamCalls.get());
+        assertFalse(primaryCancelled.get());
+        assertEquals(1, requests("hedge_failed"));
+        assertEquals(1, requests("primary_won"));
+    }
+
+    @Test
+    void shouldWaitForPrimaryWhenHedgeIsRateLimited(){
+        GatewayFilter filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+
+        MockServerWebExchange exchange = get(filter, upstream(Duration.ofMillis(200), HttpStatus.TOO_MANY_REQUESTS));
+
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals("call-1", exchange.getResponse().getBodyAsString().block());
+        assertEquals(1, requests("hedge_failed"));
+        assertEquals(1, requests("primary_won"));
+    }
+
+    @Test
+    void shouldNotHedgeWhenPrimaryAnswersInTime(){
+        GatewayFilter filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+
+        MockServerWebExchange exchange = get(filter, upstream(Duration.ZERO));
+
+        assertEquals("call-1", exchange.getResponse().getBodyAsString().block());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, requests("unhedged"));
+    }
+
+    @Test
+    void shouldWaitForPrimaryWhenBudgetIsExhausted(){
+        config.setBudgetPercent(0);
+        GatewayFilter filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+
+        MockServerWebExchange exchange = get(filter, upstream(Duration.ofMillis(100)));
+
+        assertEquals("call-1", exchange.getResponse().getBodyAsString().block());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, requests("budget_exhausted"));
+    }
+
+    @Test
+    void shouldNotHedgeOutsidePathPattern(){
+        GatewayFilter filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/users").queryParam("fields", "id").build());
+
+        filter.filter(exchange, upstream(Duration.ofMillis(100))).block(Duration.ofSeconds(5));
+
+        assertEquals("call-1", exchange.getResponse().getBodyAsString().block());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0, requests("unhedged"));
+    }
+
+    @Test
+    void shouldFetchOversizedResponseAgainWithoutHedging(){
+        config.setMaxBodyBytes(3);
+        GatewayFilter filter = new HedgingGatewayFilterFactory(meterRegistry).apply(config);
+
+        MockServerWebExchange exchange = get(filter, upstream(Duration.ZERO));
+
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals("call-2", exchange.getResponse().getBodyAsString().block());
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(1, requests("oversized"));
+    }
+
+    @Test
+    void shouldDeriveDelayFromLatencyPercentile(){
+        Timer latency = Timer.builder("test.latency").publishPercentiles(0.95).register(meterRegistry);
+        HedgeDelay delay = new HedgeDelay(latency, 0.95, 10, Duration.ofMillis(100), Duration.ofMillis(1), Duration.ofSeconds(1));
+        for (int i = 0; i < 100; i++) {
+            latency.record(i < 90 ? 10 : 40, TimeUnit.MILLISECONDS);
+        }
+
+        delay.refresh();
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(delay.currentNanos());
+        assertTrue(millis >= 35 && millis <= 45, "p95 should be about 40ms but was " + millis);
+    }
+}
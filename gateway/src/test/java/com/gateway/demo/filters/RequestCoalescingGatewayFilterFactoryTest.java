@@ -0,0 +1,141 @@
+package com.gateway.demo.filters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestCoalescingGatewayFilterFactoryTest {
+
+    private MeterRegistry meterRegistry;
+    private RequestCoalescingGatewayFilterFactory.Config config;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        config = new RequestCoalescingGatewayFilterFactory.Config();
+        config.setRouteId("user");
+        upstreamCalls = new AtomicInteger();
+    }
+
+    private GatewayFilterChain slowUpstream(Duration latency){
+        return exchange -> Mono.delay(latency).then(Mono.defer(() -> {
+            int call = upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            byte[] body = ("call-" + call).getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }));
+    }
+
+    private List<MockServerWebExchange> runConcurrently(GatewayFilter filter, GatewayFilterChain chain, int clients){
+        return runConcurrently(filter, chain, clients, i -> MockServerHttpRequest.get("/users/42").build());
+    }
+
+    private List<MockServerWebExchange> runConcurrently(GatewayFilter filter, GatewayFilterChain chain, int clients,
+                                                        IntFunction<MockServerHttpRequest> request){
+        List<MockServerWebExchange> exchanges = Flux.range(0, clients)
+                .map(i -> MockServerWebExchange.from(request.apply(i)))
+                .collectList()
+                .block();
+        Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, chain))
+                .blockLast();
+        return exchanges;
+    }
+
+    private double requests(String role){
+        return meterRegistry.get("gateway.coalescing.requests").tag("role", role).counter().count();
+    }
+
+    @Test
+    void shouldShareOneUpstreamCallBetweenConcurrentGets(){
+        GatewayFilter filter = new RequestCoalescingGatewayFilterFactory(meterRegistry).apply(config);
+
+        List<MockServerWebExchange> exchanges = runConcurrently(filter, slowUpstream(Duration.ofMillis(200)), 5);
+
+        assertEquals(1, upstreamCalls.get());
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+            assertEquals("call-1", exchange.getResponse().getBodyAsString().block());
+        }
+        assertEquals(1, requests("leader"));
+        assertEquals(4, requests("follower"));
+    }
+
+    @Test
+    void shouldFallBackToOwnCallWhenWaitExceedsBound(){
+        config.setMaxWait(Duration.ofMillis(50));
+        GatewayFilter filter = new RequestCoalescingGatewayFilterFactory(meterRegistry).apply(config);
+
+        runConcurrently(filter, slowUpstream(Duration.ofMillis(300)), 3);
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(2, requests("fallback"));
+    }
+
+    @Test
+    void shouldBypassWhenInFlightKeyLimitIsReached(){
+        config.setMaxInFlightKeys(0);
+        GatewayFilter filter = new RequestCoalescingGatewayFilterFactory(meterRegistry).apply(config);
+
+        runConcurrently(filter, slowUpstream(Duration.ofMillis(100)), 3);
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(3, requests("bypass"));
+    }
+
+    @Test
+    void shouldOnlyCoalescePathsMatchingThePattern(){
+        GatewayFilter filter = new RequestCoalescingGatewayFilterFactory(meterRegistry).apply(config);
+
+        runConcurrently(filter, slowUpstream(Duration.ofMillis(100)), 3, i -> MockServerHttpRequest.get("/users").build());
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(0, requests("leader"));
+    }
+
+    @Test
+    void shouldNotShareBodiesLargerThanTheCap(){
+        config.setMaxBodyBytes(3);
+        GatewayFilter filter = new RequestCoalescingGatewayFilterFactory(meterRegistry).apply(config);
+
+        List<MockServerWebExchange> exchanges = runConcurrently(filter, slowUpstream(Duration.ofMillis(200)), 3);
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(2, requests("fallback"));
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+            assertTrue(exchange.getResponse().getBodyAsString().block().startsWith("call-"));
+        }
+    }
+
+    @Test
+    void shouldNotShareResponsesBetweenDifferentCookies(){
+        GatewayFilter filter = new RequestCoalescingGatewayFilterFactory(meterRegistry).apply(config);
+
+        runConcurrently(filter, slowUpstream(Duration.ofMillis(200)), 4,
+                i -> MockServerHttpRequest.get("/users/42").header("Cookie", "USER_RYW=" + (i % 2)).build());
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(2, requests("leader"));
+    }
+}
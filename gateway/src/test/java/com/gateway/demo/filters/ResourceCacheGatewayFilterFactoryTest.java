@@ -0,0 +1,122 @@
+package com.gateway.demo.filters;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ResourceCacheGatewayFilterFactoryTest {
+
+    private GatewayFilter filter;
+    private AtomicInteger upstreamCalls;
+    private GatewayFilterChain upstream;
+
+    @BeforeEach
+    void setUp(){
+        filter = new ResourceCacheGatewayFilterFactory().apply(new ResourceCacheGatewayFilterFactory.Config());
+        upstreamCalls = new AtomicInteger();
+        upstream = exchange -> {
+            int call = upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            response.getHeaders().setETag("\"" + call + "\"");
+            byte[] body = ("{\"call\":" + call + "}").getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        };
+    }
+
+    private MockServerWebExchange execute(MockServerHttpRequest request){
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    @Test
+    void shouldServeSecondGetFromCache(){
+        MockServerWebExchange first = execute(MockServerHttpRequest.get("/users/42").build());
+        MockServerWebExchange second = execute(MockServerHttpRequest.get("/users/42").build());
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("{\"call\":1}", second.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void shouldEvictEntryOnWriteForSameId(){
+        execute(MockServerHttpRequest.get("/users/42").build());
+        execute(MockServerHttpRequest.put("/users/42").build());
+        MockServerWebExchange afterWrite = execute(MockServerHttpRequest.get("/users/42").build());
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals("MISS", afterWrite.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("{\"call\":3}", afterWrite.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void shouldBypassCacheWhenClientSendsNoCache(){
+        execute(MockServerHttpRequest.get("/users/42").build());
+        MockServerWebExchange bypass = execute(MockServerHttpRequest.get("/users/42").header("Cache-Control", "no-cache").build());
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals("BYPASS", bypass.getResponse().getHeaders().getFirst("X-Cache"));
+    }
+
+    @Test
+    void shouldNotCacheCollectionOrErrorResponses(){
+        MockServerWebExchange list = execute(MockServerHttpRequest.get("/users").build());
+        execute(MockServerHttpRequest.get("/users").build());
+        assertNull(list.getResponse().getHeaders().getFirst("X-Cache"));
+
+        upstream = exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+            return exchange.getResponse().setComplete();
+        };
+        execute(MockServerHttpRequest.get("/users/7").build());
+        execute(MockServerHttpRequest.get("/users/7").build());
+
+        assertEquals(4, upstreamCalls.get());
+    }
+
+    @Test
+    void shouldKeepSeparateEntriesPerCaller(){
+        execute(MockServerHttpRequest.get("/users/42").header("Authorization", "Bearer a").build());
+        MockServerWebExchange otherToken = execute(MockServerHttpRequest.get("/users/42").header("Authorization", "Bearer b").build());
+        MockServerWebExchange withCookie = execute(MockServerHttpRequest.get("/users/42").header("Authorization", "Bearer a")
+                .header("Cookie", "USER_RYW=1").build());
+        MockServerWebExchange sameCaller = execute(MockServerHttpRequest.get("/users/42").header("Authorization", "Bearer a").build());
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals("MISS", otherToken.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("MISS", withCookie.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("HIT", sameCaller.getResponse().getHeaders().getFirst("X-Cache"));
+    }
+
+    @Test
+    void shouldAnswerConditionalHitWithNotModified(){
+        execute(MockServerHttpRequest.get("/users/42").build());
+        MockServerWebExchange current = execute(MockServerHttpRequest.get("/users/42").ifNoneMatch("W/\"1\"").build());
+        MockServerWebExchange stale = execute(MockServerHttpRequest.get("/users/42").ifNoneMatch("\"0\"").build());
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, current.getResponse().getStatusCode());
+        assertEquals("\"1\"", current.getResponse().getHeaders().getETag());
+        assertEquals("", current.getResponse().getBodyAsString().defaultIfEmpty("").block());
+        assertEquals(HttpStatus.OK, stale.getResponse().getStatusCode());
+        assertEquals("{\"call\":1}", stale.getResponse().getBodyAsString().block());
+    }
+}
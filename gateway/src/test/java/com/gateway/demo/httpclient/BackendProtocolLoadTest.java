@@ -0,0 +1,167 @@
+package com.gateway.demo.httpclient;
+
+import com.gateway.demo.GatewayApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares gateway-to-backend HTTP/1.1 against h2c under the same load, with the backend pool
+ * deliberately smaller than the client concurrency. Not part of the regular build:
+ *
+ * <pre>
+ * mvn test -Dtest=BackendProtocolLoadTest -Dloadtest=true [-Dloadtest.requests=20000 -Dloadtest.concurrency=256]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class BackendProtocolLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackendProtocolLoadTest.class);
+
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 10_000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 128);
+    private static final int BACKEND_CONNECTIONS = Integer.getInteger("loadtest.backend-connections", 8);
+    private static final Duration BACKEND_LATENCY = Duration.ofMillis(Long.getLong("loadtest.backend-latency-ms", 10));
+
+    private static LoopResources backendLoops;
+    private static DisposableServer backend;
+
+    @BeforeAll
+    static void startBackend(){
+        // own event loops: closing a gateway context disposes Reactor Netty's global ones
+        backendLoops = LoopResources.create("loadtest-backend");
+        backend = HttpServer.create()
+                .runOn(backendLoops)
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .route(routes -> routes.get("/users/{id}", (request, response) -> response
+                        .header("Content-Type", "application/json")
+                        .sendString(Mono.delay(BACKEND_LATENCY).thenReturn("{\"userId\":\"" + request.param("id") + "\"}"))))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopBackend(){
+        backend.disposeNow();
+        backendLoops.disposeLater().block();
+    }
+
+    @Test
+    void compareHttp11WithH2c(){
+        Result http11 = run("http11");
+        Result h2c = run("h2c");
+
+        logger.info("{}", http11);
+        logger.info("{}", h2c);
+        assertEquals(REQUESTS, http11.succeeded);
+        assertEquals(REQUESTS, h2c.succeeded);
+    }
+
+    private Result run(String protocol){
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(GatewayApplication.class)
+                .properties(Map.of(
+                        "server.port", "0",
+                        "USER_SERVICE_URI", "http://localhost:" + backend.port(),
+                        "GATEWAY_BACKEND_PROTOCOL", protocol,
+                        "GATEWAY_USER_MAX_CONNECTIONS", String.valueOf(BACKEND_CONNECTIONS),
+                        "GATEWAY_USER_RATE_LIMIT", "1000000",
+                        "GATEWAY_USER_RATE_BURST", "1000000",
+                        "GATEWAY_HEDGE_BUDGET_PERCENT", "0",
+                        "management.tracing.enabled", "false"))
+                .run();
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            WebClient client = WebClient.builder()
+                    .baseUrl("http://localhost:" + port)
+                    .clientConnector(new ReactorClientHttpConnector(
+                            HttpClient.create(ConnectionProvider.builder("loadtest").maxConnections(CONCURRENCY * 2).build())))
+                    .build();
+
+            // warm up connections and JIT before measuring
+            load(client, Math.min(REQUESTS, 1000));
+
+            long[] latencies = new long[REQUESTS];
+            long start = System.nanoTime();
+            AtomicLong succeeded = load(client, REQUESTS, latencies);
+            long elapsed = System.nanoTime() - start;
+
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            String pendingMetric = protocol.equals("h2c")
+                    ? "reactor.netty.connection.provider.pending.streams.time"
+                    : "reactor.netty.connection.provider.pending.connections.time";
+            Timer pending = registry.find(pendingMetric).timer();
+            return new Result(protocol, succeeded.get(), elapsed, latencies,
+                    pending == null ? Double.NaN : pending.mean(TimeUnit.MILLISECONDS),
+                    pending == null ? Double.NaN : pending.max(TimeUnit.MILLISECONDS));
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void load(WebClient client, int requests){
+        load(client, requests, new long[requests]);
+    }
+
+    private static AtomicLong load(WebClient client, int requests, long[] latencies){
+        AtomicLong succeeded = new AtomicLong();
+        Flux.range(0, requests)
+                .flatMap(i -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return client.get().uri("/users/{id}", i)
+                            .header("Cache-Control", "no-cache")
+                            .retrieve()
+                            .toBodilessEntity()
+                            .doOnSuccess(response -> {
+                                latencies[i] = System.nanoTime() - start;
+                                succeeded.incrementAndGet();
+                            })
+                            .onErrorResume(e -> Mono.empty());
+                }), CONCURRENCY)
+                .blockLast();
+        return succeeded;
+    }
+
+    private record Result(String protocol, long succeeded, long elapsedNanos, long[] latencies,
+                          double pendingMeanMillis, double pendingMaxMillis) {
+
+        private double percentileMillis(double percentile){
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%-6s ok=%d throughput=%.0f req/s p50=%.1fms p99=%.1fms p99.9=%.1fms pool-acquire mean=%.2fms max=%.1fms",
+                    protocol, succeeded, succeeded / (elapsedNanos / 1e9), percentileMillis(0.50), percentileMillis(0.99),
+                    percentileMillis(0.999), pendingMeanMillis, pendingMaxMillis);
+        }
+    }
+}
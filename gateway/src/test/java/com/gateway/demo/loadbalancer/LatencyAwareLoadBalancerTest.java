@@ -0,0 +1,98 @@
+package com.gateway.demo.loadbalancer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyAwareLoadBalancerTest {
+
+    private static final long NOW = TimeUnit.HOURS.toNanos(1);
+
+    private final ServiceInstance fast = new DefaultServiceInstance("user-1", "user", "user-1", 8081, false);
+    private final ServiceInstance slow = new DefaultServiceInstance("user-2", "user", "user-2", 8081, false);
+
+    private LatencyAwareLoadBalancerProperties properties;
+    private InstanceStatsRegistry registry;
+    private LatencyAwareLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp(){
+        properties = new LatencyAwareLoadBalancerProperties();
+        properties.setFailureThreshold(3);
+        properties.setEjectionTime(Duration.ofSeconds(10));
+        registry = new InstanceStatsRegistry(properties);
+        loadBalancer = new LatencyAwareLoadBalancer(null, registry);
+    }
+
+    private ServiceInstance choose(long now){
+        return loadBalancer.select(List.of(fast, slow), now).getServer();
+    }
+
+    private static void succeed(InstanceStats stats, long latencyMillis, long now){
+        stats.requestStarted();
+        stats.requestSucceeded(TimeUnit.MILLISECONDS.toNanos(latencyMillis), now);
+    }
+
+    @Test
+    void shouldPreferTheFasterInstance(){
+        succeed(registry.get(fast), 5, NOW);
+        succeed(registry.get(slow), 200, NOW);
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast, choose(NOW));
+        }
+    }
+
+    @Test
+    void shouldAccountForRequestsInFlight(){
+        succeed(registry.get(fast), 5, NOW);
+        succeed(registry.get(slow), 20, NOW);
+        for (int i = 0; i < 10; i++) {
+            registry.get(fast).requestStarted();
+        }
+
+        assertSame(slow, choose(NOW), "5ms x 11 in flight costs more than 20ms x 1");
+    }
+
+    @Test
+    void shouldEjectAfterConsecutiveFailuresAndReadmitWithSlowStart(){
+        InstanceStats stats = registry.get(fast);
+        succeed(stats, 5, NOW);
+        succeed(registry.get(slow), 50, NOW);
+        for (int i = 0; i < 3; i++) {
+            stats.requestStarted();
+            stats.requestFailed(TimeUnit.MILLISECONDS.toNanos(5), NOW);
+        }
+
+        assertFalse(stats.isAvailable(NOW));
+        for (int i = 0; i < 20; i++) {
+            assertSame(slow, choose(NOW));
+        }
+
+        long readmitted = NOW + TimeUnit.SECONDS.toNanos(10);
+        assertTrue(stats.isAvailable(readmitted));
+        assertEquals(0.1, stats.weight(readmitted), 1e-9);
+        assertEquals(1.0, stats.weight(readmitted + properties.getSlowStart().toNanos()), 1e-9);
+    }
+
+    @Test
+    void shouldFallBackToAllInstancesWhenEveryInstanceIsEjected(){
+        for (ServiceInstance instance : List.of(fast, slow)) {
+            InstanceStats stats = registry.get(instance);
+            for (int i = 0; i < 3; i++) {
+                stats.requestStarted();
+                stats.requestFailed(1, NOW);
+            }
+        }
+
+        assertNotNull(choose(NOW));
+        assertFalse(loadBalancer.select(List.of(), NOW).hasServer());
+    }
+}
@@ -0,0 +1,76 @@
+package com.gateway.demo.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketRateLimiterTest {
+
+    private AtomicLong clock;
+    private TokenBucketRateLimiter limiter;
+
+    @BeforeEach
+    void setUp(){
+        clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        limiter = new TokenBucketRateLimiter(null, clock::get);
+        limiter.getConfig().put("user", new TokenBucketRateLimiter.Config().setReplenishRate(10).setBurstCapacity(5));
+    }
+
+    private RateLimiter.Response request(String key){
+        return limiter.isAllowed("user", key).block();
+    }
+
+    @Test
+    void shouldAllowBurstThenRejectWithRetryAfter(){
+        for (int i = 0; i < 5; i++) {
+            assertTrue(request("10.0.0.1").isAllowed(), "request " + i + " is within the burst");
+        }
+        RateLimiter.Response rejected = request("10.0.0.1");
+
+        assertFalse(rejected.isAllowed());
+        assertEquals("1", rejected.getHeaders().get("Retry-After"));
+        assertEquals("0", rejected.getHeaders().get(TokenBucketRateLimiter.REMAINING_HEADER));
+    }
+
+    @Test
+    void shouldReplenishTokensOverTime(){
+        for (int i = 0; i < 5; i++) {
+            request("10.0.0.1");
+        }
+        assertFalse(request("10.0.0.1").isAllowed());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertTrue(request("10.0.0.1").isAllowed());
+        assertFalse(request("10.0.0.1").isAllowed());
+    }
+
+    @Test
+    void shouldKeepSeparateBucketsPerClientKey(){
+        for (int i = 0; i < 5; i++) {
+            request("10.0.0.1");
+        }
+        assertFalse(request("10.0.0.1").isAllowed());
+        assertTrue(request("10.0.0.2").isAllowed());
+    }
+
+    @Test
+    void shouldEvictBucketsThatStayedIdle(){
+        limiter.setIdleTimeout(Duration.ofMinutes(1));
+        request("10.0.0.1");
+        request("10.0.0.2");
+
+        limiter.evictIdleBuckets();
+        assertEquals(2, limiter.trackedKeys());
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        limiter.evictIdleBuckets();
+        assertEquals(0, limiter.trackedKeys());
+    }
+}
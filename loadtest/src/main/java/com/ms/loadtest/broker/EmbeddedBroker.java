@@ -0,0 +1,70 @@
+package com.ms.loadtest.broker;
+
+import com.ms.loadtest.configs.LoadTestProperties;
+import org.apache.qpid.server.SystemLauncher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory AMQP 0-9-1 broker (Qpid Broker-J) on localhost. It speaks the protocol the services'
+ * RabbitMQ client uses, so they run unchanged; nothing is persisted, which keeps runs
+ * independent of each other and of the disk.
+ */
+@Component
+public class EmbeddedBroker implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedBroker.class);
+
+    private final LoadTestProperties.Broker properties;
+
+    private SystemLauncher launcher;
+
+    public EmbeddedBroker(LoadTestProperties properties){
+        this.properties = properties.getBroker();
+    }
+
+    /**
+     * The value for RABBITMQ_ADDRESSES of the services.
+     */
+    public String addresses(){
+        return properties.isEmbedded() ? "localhost:" + properties.getPort() : properties.getAddresses();
+    }
+
+    @Override
+    public void start(){
+        if (!properties.isEmbedded()) {
+            return;
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("type", "Memory");
+        attributes.put("initialConfigurationLocation", EmbeddedBroker.class.getResource("/loadtest-broker.json").toExternalForm());
+        attributes.put("initialSystemPropertiesLocation", EmbeddedBroker.class.getResource("/loadtest-broker.properties").toExternalForm());
+        attributes.put("startupLoggedToSystemOut", false);
+        attributes.put("context", Map.of("qpid.amqp_port", String.valueOf(properties.getPort())));
+        launcher = new SystemLauncher();
+        try {
+            launcher.startup(attributes);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not start the embedded broker on port " + properties.getPort(), e);
+        }
+        logger.info("Embedded AMQP broker listening on localhost:{}", properties.getPort());
+    }
+
+    @Override
+    public void stop(){
+        if (launcher != null) {
+            launcher.shutdown();
+            launcher = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning(){
+        return launcher != null;
+    }
+}
@@ -0,0 +1,124 @@
+package com.ms.loadtest.configs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("loadtest")
+public class LoadTestProperties {
+
+    /**
+     * Request rates (POST /users per second) of the measured steps, run one after the other.
+     */
+    private List<Integer> rates = List.of(25, 50, 100);
+
+    /**
+     * Duration of each measured step.
+     */
+    private Duration stepDuration = Duration.ofSeconds(60);
+
+    /**
+     * Traffic at the first rate before measuring, so that JIT, pools and caches are warm.
+     */
+    private Duration warmup = Duration.ofSeconds(30);
+
+    /**
+     * How long to wait after the last step for emails still in the pipeline.
+     */
+    private Duration drainTimeout = Duration.ofSeconds(60);
+
+    /**
+     * Requests still waiting for a response beyond which new ones are not sent but counted as
+     * dropped, so an overloaded system cannot exhaust the harness.
+     */
+    private int maxInFlight = 5000;
+
+    private Duration requestTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Where the JSON report of the run is written.
+     */
+    private Path reportDir = Path.of("target", "loadtest");
+
+    /**
+     * A previous report to compare with; the differences are logged at the end of the run.
+     */
+    private Path baseline;
+
+    /**
+     * Overrides the commit recorded in the report (git rev-parse HEAD by default).
+     */
+    private String commit;
+
+    private Broker broker = new Broker();
+
+    private Smtp smtp = new Smtp();
+
+    private Services services = new Services();
+
+    @Data
+    public static class Broker {
+        /**
+         * Start the in-process broker; when false, {@link #addresses} must point at a RabbitMQ.
+         */
+        private boolean embedded = true;
+        private int port = 25672;
+        private String addresses;
+    }
+
+    @Data
+    public static class Smtp {
+        private int port = 25025;
+        /**
+         * Simulated provider latency, applied between the end of DATA and the 250 reply.
+         */
+        private Duration latency = Duration.ZERO;
+    }
+
+    @Data
+    public static class Services {
+        /**
+         * Start user, email and gateway from their jars; when false, {@link #gatewayUrl} and
+         * the actuator URLs must point at running instances wired to this harness.
+         */
+        private boolean launch = true;
+        private String javaOptions = "-Xmx512m";
+        private Duration startupTimeout = Duration.ofMinutes(3);
+        private String gatewayUrl;
+        private Service user = new Service("../user/target/user-0.0.1-SNAPSHOT.jar", 18081);
+        private Service email = new Service("../email/target/email-0.0.1-SNAPSHOT.jar", 18082);
+        private Service gateway = new Service("../gateway/target/demo-0.0.1-SNAPSHOT.jar", 18080);
+        private Database userDb = new Database("jdbc:postgresql://localhost:5433/loadtest_user", "postgres", "");
+        private Database emailDb = new Database("jdbc:postgresql://localhost:5434/loadtest_email", "postgres", "");
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Service {
+        private String jar;
+        private int port;
+
+        public String url(){
+            return "http://localhost:" + port;
+        }
+    }
+
+    /**
+     * A database owned by the harness: it is created if missing and emptied before each run.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Database {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
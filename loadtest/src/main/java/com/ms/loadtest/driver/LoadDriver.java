@@ -0,0 +1,148 @@
+package com.ms.loadtest.driver;
+
+import com.ms.loadtest.configs.LoadTestProperties;
+import com.ms.loadtest.metrics.LatencyRecorder;
+import com.ms.loadtest.smtp.SmtpStandIn;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load: POST /users is sent on a fixed schedule whether or not earlier requests have
+ * completed, and latencies are measured from the time a request was due rather than from when
+ * it was actually sent. A slow system therefore shows up as latency instead of silently
+ * lowering the offered rate (coordinated omission).
+ *
+ * <p>Each user gets a unique address, and the welcome email reaching the {@link SmtpStandIn}
+ * closes the end-to-end measurement of that request.
+ */
+@Component
+public class LoadDriver {
+
+    private final LoadTestProperties properties;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    private record Pending(long dueNanos, Step step) {
+    }
+
+    public LoadDriver(LoadTestProperties properties, SmtpStandIn smtpStandIn){
+        this.properties = properties;
+        smtpStandIn.setListener(this::delivered);
+    }
+
+    /**
+     * What happened to the requests of one step; emails of a step may still arrive while the
+     * next one runs and are attributed to the step that created them.
+     */
+    public static class Step {
+        public final int rate;
+        public final Duration duration;
+        public final LatencyRecorder http = new LatencyRecorder();
+        public final LatencyRecorder endToEnd = new LatencyRecorder();
+        public final AtomicLong sent = new AtomicLong();
+        public final AtomicLong succeeded = new AtomicLong();
+        public final AtomicLong failed = new AtomicLong();
+        public final AtomicLong dropped = new AtomicLong();
+        public final AtomicLong delivered = new AtomicLong();
+
+        Step(int rate, Duration duration){
+            this.rate = rate;
+            this.duration = duration;
+        }
+    }
+
+    public Step run(String gatewayUrl, int rate, Duration duration){
+        Step step = new Step(rate, duration);
+        URI uri = URI.create(gatewayUrl + "/users");
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= properties.getMaxInFlight()) {
+                step.dropped.incrementAndGet();
+                continue;
+            }
+            send(uri, due, step);
+        }
+        return step;
+    }
+
+    private void send(URI uri, long due, Step step){
+        long n = sequence.incrementAndGet();
+        String email = "lt-" + runId + "-" + n + "@loadtest.local";
+        String body = "{\"name\":\"Load Test " + n + "\",\"email\":\"" + email + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(properties.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        // registered before sending: the email can arrive before the response is processed
+        pending.put(email, new Pending(due, step));
+        inFlight.incrementAndGet();
+        step.sent.incrementAndGet();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long latency = System.nanoTime() - due;
+            inFlight.decrementAndGet();
+            if (error == null && response.statusCode() == 201) {
+                step.succeeded.incrementAndGet();
+                step.http.record(latency);
+            } else {
+                step.failed.incrementAndGet();
+                pending.remove(email);
+            }
+        });
+    }
+
+    private void delivered(String recipient, long receivedNanos){
+        Pending request = pending.remove(recipient);
+        if (request != null) {
+            request.step.delivered.incrementAndGet();
+            request.step.endToEnd.record(receivedNanos - request.dueNanos);
+        }
+    }
+
+    /**
+     * Waits until every email of a successful request has arrived, or the timeout passed.
+     * Returns the number still missing.
+     */
+    public int awaitDelivery(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while ((inFlight.get() > 0 || !pending.isEmpty()) && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        return pending.size();
+    }
+
+    /**
+     * Forgets the requests still pending, e.g. those of the warmup.
+     */
+    public void reset(){
+        pending.clear();
+    }
+}
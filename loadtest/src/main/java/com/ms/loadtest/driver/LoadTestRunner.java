@@ -0,0 +1,250 @@
+package com.ms.loadtest.driver;
+
+import com.ms.loadtest.broker.EmbeddedBroker;
+import com.ms.loadtest.configs.LoadTestProperties;
+import com.ms.loadtest.metrics.PrometheusHistogram;
+import com.ms.loadtest.report.LoadTestReport;
+import com.ms.loadtest.report.ReportWriter;
+import com.ms.loadtest.report.StageStats;
+import com.ms.loadtest.report.StepReport;
+import com.ms.loadtest.services.DatabasePreparer;
+import com.ms.loadtest.services.ServiceLauncher;
+import com.ms.loadtest.smtp.SmtpStandIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the pipeline (broker and SMTP stand-ins are lifecycle beans, the services child
+ * processes), runs the warmup and the measured steps, and writes the report.
+ *
+ * <p>Stages measured by the harness itself are exact; the stages inside the services come from
+ * their Prometheus histograms, scraped before and after each step.
+ */
+@Component
+public class LoadTestRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private static final String EMAIL_QUEUE = "loadtest.email";
+
+    private record Stage(String name, String service, String metric, Map<String, String> labels) {
+    }
+
+    // in pipeline order
+    private static final List<Stage> SERVICE_STAGES = List.of(
+            new Stage("user.save", "user", "user_service_seconds", Map.of("operation", "save")),
+            new Stage("publish", "user", "spring_rabbit_template_seconds", Map.of()),
+            new Stage("queue.wait", "email", "email_pipeline_queue_wait_seconds", Map.of()),
+            new Stage("consume", "email", "email_listener_process_seconds", Map.of()),
+            new Stage("smtp", "email", "email_smtp_send_seconds", Map.of()),
+            new Stage("db", "email", "email_db_save_seconds", Map.of()));
+
+    private final LoadTestProperties properties;
+
+    private final EmbeddedBroker broker;
+
+    private final SmtpStandIn smtpStandIn;
+
+    private final DatabasePreparer databasePreparer;
+
+    private final ServiceLauncher serviceLauncher;
+
+    private final LoadDriver loadDriver;
+
+    private final ReportWriter reportWriter;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    public LoadTestRunner(LoadTestProperties properties, EmbeddedBroker broker, SmtpStandIn smtpStandIn,
+                          DatabasePreparer databasePreparer, ServiceLauncher serviceLauncher, LoadDriver loadDriver,
+                          ReportWriter reportWriter){
+        this.properties = properties;
+        this.broker = broker;
+        this.smtpStandIn = smtpStandIn;
+        this.databasePreparer = databasePreparer;
+        this.serviceLauncher = serviceLauncher;
+        this.loadDriver = loadDriver;
+        this.reportWriter = reportWriter;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        LoadTestProperties.Services services = properties.getServices();
+        if (services.isLaunch()) {
+            launchServices(services);
+        }
+        String gatewayUrl = services.isLaunch() ? services.getGateway().url() : services.getGatewayUrl();
+        Instant startedAt = Instant.now();
+
+        logger.info("Warming up at {} req/s for {}", properties.getRates().get(0), properties.getWarmup());
+        loadDriver.run(gatewayUrl, properties.getRates().get(0), properties.getWarmup());
+        loadDriver.awaitDelivery(properties.getDrainTimeout());
+        loadDriver.reset();
+
+        List<LoadDriver.Step> steps = new ArrayList<>();
+        List<Map<String, PrometheusHistogram>> histograms = new ArrayList<>();
+        for (int rate : properties.getRates()) {
+            logger.info("Measuring {} req/s for {}", rate, properties.getStepDuration());
+            Map<String, String> before = scrape();
+            steps.add(loadDriver.run(gatewayUrl, rate, properties.getStepDuration()));
+            Map<String, String> after = scrape();
+            histograms.add(delta(before, after));
+        }
+        int undelivered = loadDriver.awaitDelivery(properties.getDrainTimeout());
+        if (undelivered > 0) {
+            logger.warn("{} emails did not arrive within {}", undelivered, properties.getDrainTimeout());
+        }
+
+        List<StepReport> stepReports = new ArrayList<>();
+        for (int i = 0; i < steps.size(); i++) {
+            stepReports.add(stepReport(steps.get(i), histograms.get(i)));
+        }
+        LoadTestReport report = new LoadTestReport(commit(), startedAt, environment(), settings(), stepReports);
+        reportWriter.log(report);
+        Path file = reportWriter.write(report, properties.getReportDir());
+        logger.info("Report written to {}", file.toAbsolutePath());
+        if (properties.getBaseline() != null && !properties.getBaseline().toString().isEmpty()) {
+            reportWriter.compare(reportWriter.read(properties.getBaseline()), report);
+        }
+    }
+
+    private void launchServices(LoadTestProperties.Services services) throws Exception {
+        databasePreparer.prepare(services.getUserDb(), List.of("tb_users"));
+        databasePreparer.prepare(services.getEmailDb(), List.of("tb_emails", "tb_user_directory"));
+        Map<String, String> common = Map.of(
+                "RABBITMQ_ADDRESSES", broker.addresses(),
+                "BROKER_QUEUE_EMAIL_NAME", EMAIL_QUEUE,
+                "TRACING_SAMPLING_PROBABILITY", "0");
+
+        Map<String, String> user = new HashMap<>(common);
+        user.put("USER_SERVER_PORT", String.valueOf(services.getUser().getPort()));
+        user.put("USER_DB_URL", services.getUserDb().getUrl());
+        user.put("USER_DB_USERNAME", services.getUserDb().getUsername());
+        user.put("USER_DB_PASSWORD", services.getUserDb().getPassword());
+        serviceLauncher.launch("user", services.getUser(), user,
+                List.of("--management.metrics.distribution.percentiles-histogram.spring.rabbit.template=true"));
+
+        Map<String, String> email = new HashMap<>(common);
+        email.put("EMAIL_SERVER_PORT", String.valueOf(services.getEmail().getPort()));
+        email.put("EMAIL_DB_URL", services.getEmailDb().getUrl());
+        email.put("EMAIL_DB_USERNAME", services.getEmailDb().getUsername());
+        email.put("EMAIL_DB_PASSWORD", services.getEmailDb().getPassword());
+        email.put("MAIL_SMTP_HOST", "localhost");
+        email.put("MAIL_PORT", String.valueOf(smtpStandIn.port()));
+        email.put("MAIL_USERNAME", "loadtest@loadtest.local");
+        email.put("MAIL_PASSWORD", "");
+        email.put("MAIL_PROTOCOL", "smtp");
+        email.put("MAIL_AUTH", "false");
+        email.put("MAIL_STARTTLS_ENABLE", "false");
+        email.put("MAIL_STARTTLS_REQUIRED", "false");
+        email.put("MAIL_SSL_TRUST", "*");
+        email.put("MAIL_TEST_CONNECTION", "false");
+        serviceLauncher.launch("email", services.getEmail(), email, List.of());
+
+        Map<String, String> gateway = new HashMap<>(common);
+        gateway.put("GATEWAY_SERVER_PORT", String.valueOf(services.getGateway().getPort()));
+        gateway.put("USER_SERVICE_URI", services.getUser().url());
+        // the harness is one client; per-IP rate limiting would cap every step
+        gateway.put("GATEWAY_USER_RATE_LIMIT", "1000000");
+        gateway.put("GATEWAY_USER_RATE_BURST", "1000000");
+        serviceLauncher.launch("gateway", services.getGateway(), gateway, List.of());
+    }
+
+    private Map<String, String> scrape() throws IOException, InterruptedException {
+        Map<String, String> expositions = new HashMap<>();
+        for (String service : List.of("user", "email")) {
+            LoadTestProperties.Service target = service.equals("user") ? properties.getServices().getUser() : properties.getServices().getEmail();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(target.url() + "/actuator/prometheus"))
+                    .timeout(Duration.ofSeconds(10)).build();
+            expositions.put(service, httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).body());
+        }
+        return expositions;
+    }
+
+    private static Map<String, PrometheusHistogram> delta(Map<String, String> before, Map<String, String> after){
+        Map<String, PrometheusHistogram> delta = new HashMap<>();
+        for (Stage stage : SERVICE_STAGES) {
+            delta.put(stage.name(), PrometheusHistogram.parse(after.get(stage.service()), stage.metric(), stage.labels())
+                    .minus(PrometheusHistogram.parse(before.get(stage.service()), stage.metric(), stage.labels())));
+        }
+        return delta;
+    }
+
+    private static StepReport stepReport(LoadDriver.Step step, Map<String, PrometheusHistogram> histograms){
+        double seconds = step.duration.toMillis() / 1000.0;
+        Map<String, StageStats> stages = new LinkedHashMap<>();
+        stages.put("http", step.http.stats(seconds));
+        for (Stage stage : SERVICE_STAGES) {
+            stages.put(stage.name(), histograms.get(stage.name()).stats(seconds));
+        }
+        stages.put("end-to-end", step.endToEnd.stats(seconds));
+        long delivered = step.delivered.get();
+        return new StepReport(step.rate, seconds, step.sent.get(), step.succeeded.get(), step.failed.get(), step.dropped.get(),
+                delivered, step.succeeded.get() - delivered, stages);
+    }
+
+    private Map<String, String> settings(){
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("rates", properties.getRates().toString());
+        settings.put("stepDuration", properties.getStepDuration().toString());
+        settings.put("warmup", properties.getWarmup().toString());
+        settings.put("maxInFlight", String.valueOf(properties.getMaxInFlight()));
+        settings.put("smtpLatency", properties.getSmtp().getLatency().toString());
+        settings.put("embeddedBroker", String.valueOf(properties.getBroker().isEmbedded()));
+        settings.put("javaOptions", properties.getServices().getJavaOptions());
+        return settings;
+    }
+
+    private static Map<String, String> environment(){
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put("cpus", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        return environment;
+    }
+
+    private String commit(){
+        if (properties.getCommit() != null && !properties.getCommit().isBlank()) {
+            return properties.getCommit();
+        }
+        String head = git("rev-parse", "--short", "HEAD");
+        if (head == null || head.isEmpty()) {
+            return "unknown";
+        }
+        String changes = git("status", "--porcelain", "--untracked-files=no");
+        return changes == null || changes.isEmpty() ? head : head + "-dirty";
+    }
+
+    private static String git(String... args){
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(args));
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return process.waitFor() == 0 ? output : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ms.loadtest.metrics;
+
+import com.ms.loadtest.report.StageStats;
+
+import java.util.Arrays;
+
+/**
+ * Keeps every sample, so percentiles are exact; a step at a few hundred requests per second
+ * for a few minutes is well within memory.
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+
+    private int size;
+
+    public synchronized void record(long nanos){
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = Math.max(0, nanos);
+    }
+
+    public synchronized int count(){
+        return size;
+    }
+
+    public StageStats stats(double seconds){
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, size);
+        }
+        Arrays.sort(sorted);
+        if (sorted.length == 0) {
+            return new StageStats("client", 0, 0, null, null, null, null);
+        }
+        return new StageStats("client", sorted.length, sorted.length / seconds,
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)), millis(percentile(sorted, 0.999)),
+                millis(sorted[sorted.length - 1]));
+    }
+
+    /**
+     * Nearest rank: the smallest sample that at least a fraction q of all samples do not exceed.
+     */
+    static long percentile(long[] sorted, double q){
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos){
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.ms.loadtest.metrics;
+
+import com.ms.loadtest.report.StageStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cumulative bucket counts of one Prometheus histogram (in seconds), summed over all series
+ * that match a label filter. Two scrapes are subtracted to get the samples of the interval in
+ * between, and quantiles are interpolated linearly within a bucket, like histogram_quantile().
+ */
+public class PrometheusHistogram {
+
+    private final TreeMap<Double, Double> buckets;
+
+    PrometheusHistogram(TreeMap<Double, Double> buckets){
+        this.buckets = buckets;
+    }
+
+    /**
+     * Reads {@code <name>_bucket} series from the Prometheus text format.
+     *
+     * @param filter labels a series must have (other labels are summed over)
+     */
+    public static PrometheusHistogram parse(String exposition, String name, Map<String, String> filter){
+        TreeMap<Double, Double> buckets = new TreeMap<>();
+        String prefix = name + "_bucket{";
+        for (String line : exposition.split("\n")) {
+            if (!line.startsWith(prefix)) {
+                continue;
+            }
+            int close = line.lastIndexOf('}');
+            Map<String, String> labels = labels(line.substring(prefix.length(), close));
+            if (!labels.entrySet().containsAll(filter.entrySet())) {
+                continue;
+            }
+            String[] value = line.substring(close + 1).trim().split(" ");
+            String le = labels.get("le");
+            double bound = le.equals("+Inf") ? Double.POSITIVE_INFINITY : Double.parseDouble(le);
+            buckets.merge(bound, Double.parseDouble(value[0]), Double::sum);
+        }
+        return new PrometheusHistogram(buckets);
+    }
+
+    static Map<String, String> labels(String text){
+        Map<String, String> labels = new HashMap<>();
+        int i = 0;
+        while (i < text.length()) {
+            int eq = text.indexOf('=', i);
+            String key = text.substring(i, eq).trim();
+            StringBuilder value = new StringBuilder();
+            int j = eq + 2; // skip ="
+            while (text.charAt(j) != '"') {
+                if (text.charAt(j) == '\\') {
+                    j++;
+                }
+                value.append(text.charAt(j++));
+            }
+            labels.put(key, value.toString());
+            i = j + 1;
+            if (i < text.length() && text.charAt(i) == ',') {
+                i++;
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * The samples recorded after {@code earlier} was scraped. A series that appeared in between
+     * counts from zero; a restarted service shows up as negative counts, which are clamped.
+     */
+    public PrometheusHistogram minus(PrometheusHistogram earlier){
+        TreeMap<Double, Double> delta = new TreeMap<>();
+        buckets.forEach((bound, count) -> delta.put(bound, Math.max(0, count - earlier.buckets.getOrDefault(bound, 0.0))));
+        return new PrometheusHistogram(delta);
+    }
+
+    public long count(){
+        return buckets.isEmpty() ? 0 : Math.round(buckets.lastEntry().getValue());
+    }
+
+    /**
+     * In seconds; NaN without samples. Samples beyond the largest finite bucket are reported as
+     * that bucket's bound.
+     */
+    public double quantile(double q){
+        double total = buckets.isEmpty() ? 0 : buckets.lastEntry().getValue();
+        if (total == 0) {
+            return Double.NaN;
+        }
+        double rank = q * total;
+        double lowerBound = 0;
+        double lowerCount = 0;
+        for (Map.Entry<Double, Double> bucket : buckets.entrySet()) {
+            if (bucket.getValue() >= rank) {
+                if (bucket.getKey().isInfinite()) {
+                    return lowerBound;
+                }
+                double inBucket = bucket.getValue() - lowerCount;
+                double fraction = inBucket == 0 ? 1 : (rank - lowerCount) / inBucket;
+                return lowerBound + (bucket.getKey() - lowerBound) * fraction;
+            }
+            lowerBound = bucket.getKey();
+            lowerCount = bucket.getValue();
+        }
+        return lowerBound;
+    }
+
+    public StageStats stats(double seconds){
+        long count = count();
+        if (count == 0) {
+            return new StageStats("histogram", 0, 0, null, null, null, null);
+        }
+        return new StageStats("histogram", count, count / seconds,
+                quantile(0.50) * 1000, quantile(0.99) * 1000, quantile(0.999) * 1000, null);
+    }
+}
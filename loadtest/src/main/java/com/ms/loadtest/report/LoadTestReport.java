@@ -0,0 +1,17 @@
+package com.ms.loadtest.report;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a run. Two reports are comparable when their settings and environment match.
+ */
+public record LoadTestReport(
+        String commit,
+        Instant startedAt,
+        Map<String, String> environment,
+        Map<String, String> settings,
+        List<StepReport> steps
+) {
+}
@@ -0,0 +1,90 @@
+package com.ms.loadtest.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+@Component
+public class ReportWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportWriter.class);
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper;
+
+    public ReportWriter(ObjectMapper objectMapper){
+        this.objectMapper = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    public Path write(LoadTestReport report, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("loadtest-" + report.commit() + "-" + FILE_TIME.format(report.startedAt()) + ".json");
+        objectMapper.writeValue(file.toFile(), report);
+        return file;
+    }
+
+    public LoadTestReport read(Path file) throws IOException {
+        return objectMapper.readValue(file.toFile(), LoadTestReport.class);
+    }
+
+    public void log(LoadTestReport report){
+        for (StepReport step : report.steps()) {
+            logger.info("{} req/s for {}s: sent {}, ok {}, failed {}, dropped {}, delivered {}, undelivered {}",
+                    step.targetRate(), step.durationSeconds(), step.sent(), step.succeeded(), step.failed(), step.dropped(),
+                    step.delivered(), step.undelivered());
+            logger.info(String.format(Locale.ROOT, "  %-12s %-9s %9s %9s %10s %10s %10s %10s",
+                    "stage", "source", "count", "per sec", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+            step.stages().forEach((name, stats) -> logger.info(String.format(Locale.ROOT, "  %-12s %-9s %9d %9.1f %10s %10s %10s %10s",
+                    name, stats.source(), stats.count(), stats.perSecond(),
+                    format(stats.p50Ms()), format(stats.p99Ms()), format(stats.p999Ms()), format(stats.maxMs()))));
+        }
+    }
+
+    /**
+     * Logs the change of throughput and p99 per stage for the steps both reports ran.
+     */
+    public void compare(LoadTestReport baseline, LoadTestReport report){
+        if (!Objects.equals(baseline.settings(), report.settings()) || !Objects.equals(baseline.environment(), report.environment())) {
+            logger.warn("Baseline {} ran with different settings or on a different machine; the comparison is only indicative",
+                    baseline.commit());
+        }
+        for (StepReport step : report.steps()) {
+            StepReport before = baseline.steps().stream().filter(s -> s.targetRate() == step.targetRate()).findFirst().orElse(null);
+            if (before == null) {
+                continue;
+            }
+            for (Map.Entry<String, StageStats> stage : step.stages().entrySet()) {
+                StageStats old = before.stages().get(stage.getKey());
+                if (old == null) {
+                    continue;
+                }
+                logger.info(String.format(Locale.ROOT, "%d req/s %-12s per sec %8.1f -> %8.1f   p99 %10s -> %10s ms %s",
+                        step.targetRate(), stage.getKey(), old.perSecond(), stage.getValue().perSecond(),
+                        format(old.p99Ms()), format(stage.getValue().p99Ms()), change(old.p99Ms(), stage.getValue().p99Ms())));
+            }
+        }
+    }
+
+    private static String change(Double before, Double after){
+        if (before == null || after == null || before == 0) {
+            return "";
+        }
+        return String.format(Locale.ROOT, "(%+.1f%%)", (after - before) * 100 / before);
+    }
+
+    private static String format(Double millis){
+        return millis == null ? "-" : String.format(Locale.ROOT, "%.2f", millis);
+    }
+}
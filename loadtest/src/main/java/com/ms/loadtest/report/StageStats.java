@@ -0,0 +1,17 @@
+package com.ms.loadtest.report;
+
+/**
+ * Latency of one pipeline stage during a step. {@code source} tells how it was measured:
+ * "client" values are exact, "histogram" values are interpolated from a service's Prometheus
+ * buckets and are only as precise as the bucket boundaries (max is not known).
+ */
+public record StageStats(
+        String source,
+        long count,
+        double perSecond,
+        Double p50Ms,
+        Double p99Ms,
+        Double p999Ms,
+        Double maxMs
+) {
+}
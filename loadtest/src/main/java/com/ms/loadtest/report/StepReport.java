@@ -0,0 +1,21 @@
+package com.ms.loadtest.report;
+
+import java.util.Map;
+
+/**
+ * One measured step at a fixed request rate. Requests are counted by outcome: {@code dropped}
+ * ones were never sent because too many were in flight, {@code undelivered} ones were created
+ * but their email had not reached the SMTP stand-in when the run ended.
+ */
+public record StepReport(
+        int targetRate,
+        double durationSeconds,
+        long sent,
+        long succeeded,
+        long failed,
+        long dropped,
+        long delivered,
+        long undelivered,
+        Map<String, StageStats> stages
+) {
+}
@@ -0,0 +1,57 @@
+package com.ms.loadtest.services;
+
+import com.ms.loadtest.configs.LoadTestProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Every run starts from empty tables, otherwise index sizes and email checks would make runs
+ * on different days incomparable. The services' Flyway migrations create the schema.
+ */
+@Component
+public class DatabasePreparer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabasePreparer.class);
+
+    public void prepare(LoadTestProperties.Database database, List<String> tables) throws SQLException {
+        createIfMissing(database);
+        try (Connection connection = DriverManager.getConnection(database.getUrl(), database.getUsername(), database.getPassword());
+             Statement statement = connection.createStatement()) {
+            for (String table : tables) {
+                try (ResultSet exists = statement.executeQuery("SELECT to_regclass('" + table + "') IS NOT NULL")) {
+                    exists.next();
+                    if (exists.getBoolean(1)) {
+                        statement.execute("TRUNCATE " + table);
+                    }
+                }
+            }
+        }
+        logger.info("Emptied {} in {}", tables, database.getUrl());
+    }
+
+    private static void createIfMissing(LoadTestProperties.Database database) throws SQLException {
+        String url = database.getUrl();
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        String maintenance = path.substring(0, path.lastIndexOf('/') + 1) + "postgres" + (query < 0 ? "" : url.substring(query));
+        try (Connection connection = DriverManager.getConnection(maintenance, database.getUsername(), database.getPassword());
+             Statement statement = connection.createStatement()) {
+            try (ResultSet exists = statement.executeQuery("SELECT 1 FROM pg_database WHERE datname = '" + name.replace("'", "''") + "'")) {
+                if (exists.next()) {
+                    return;
+                }
+            }
+            statement.execute("CREATE DATABASE \"" + name.replace("\"", "\"\"") + "\"");
+            logger.info("Created database {}", name);
+        }
+    }
+}
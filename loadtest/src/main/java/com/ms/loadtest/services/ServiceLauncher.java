@@ -0,0 +1,102 @@
+package com.ms.loadtest.services;
+
+import com.ms.loadtest.configs.LoadTestProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a service jar as a child process with the given environment, and waits until its health
+ * endpoint answers 200. Output goes to {@code <report-dir>/logs/<name>.log}, which is also the
+ * working directory, so files the services write (spans) stay out of the source tree.
+ */
+@Component
+public class ServiceLauncher implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceLauncher.class);
+
+    private final LoadTestProperties properties;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private final List<Process> processes = new ArrayList<>();
+
+    public ServiceLauncher(LoadTestProperties properties){
+        this.properties = properties;
+    }
+
+    public void launch(String name, LoadTestProperties.Service service, Map<String, String> environment, List<String> args)
+            throws IOException, InterruptedException {
+        Path jar = Path.of(service.getJar()).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No jar for " + name + " at " + jar + "; build it with mvn package first");
+        }
+        Path logs = properties.getReportDir().resolve("logs").toAbsolutePath();
+        Files.createDirectories(logs);
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.stream(properties.getServices().getJavaOptions().split("\\s+")).filter(option -> !option.isBlank()).toList());
+        command.add("-jar");
+        command.add(jar.toString());
+        command.addAll(args);
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(logs.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(logs.resolve(name + ".log").toFile());
+        builder.environment().putAll(environment);
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        processes.add(process);
+        awaitHealthy(name, process, service.url() + "/actuator/health");
+        logger.info("{} is up after {} ms (log: {})", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), logs.resolve(name + ".log"));
+    }
+
+    private void awaitHealthy(String name, Process process, String healthUrl) throws InterruptedException {
+        long deadline = System.nanoTime() + properties.getServices().getStartupTimeout().toNanos();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(healthUrl)).timeout(Duration.ofSeconds(2)).build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with code " + process.exitValue() + " during startup, see its log");
+            }
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException(name + " did not become healthy within " + properties.getServices().getStartupTimeout());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // gateway first, then the services behind it
+        for (int i = processes.size() - 1; i >= 0; i--) {
+            Process process = processes.get(i);
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+        processes.clear();
+    }
+}
@@ -0,0 +1,192 @@
+package com.ms.loadtest.smtp;
+
+import com.ms.loadtest.configs.LoadTestProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Just enough SMTP for JavaMail to deliver a message: the message body is read and dropped and
+ * every recipient is reported to the {@link DeliveryListener} with the time the message was
+ * received. An optional latency before the final reply stands in for a real provider.
+ */
+@Component
+public class SmtpStandIn implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpStandIn.class);
+
+    /**
+     * Called once per recipient when a message has been received, on the connection's thread.
+     */
+    public interface DeliveryListener {
+        void delivered(String recipient, long receivedNanos);
+    }
+
+    private final int port;
+
+    private final Duration latency;
+
+    private final AtomicLong messages = new AtomicLong();
+
+    private volatile DeliveryListener listener = (recipient, receivedNanos) -> { };
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService connections;
+
+    @Autowired
+    public SmtpStandIn(LoadTestProperties properties){
+        this(properties.getSmtp().getPort(), properties.getSmtp().getLatency());
+    }
+
+    SmtpStandIn(int port, Duration latency){
+        this.port = port;
+        this.latency = latency;
+    }
+
+    public void setListener(DeliveryListener listener){
+        this.listener = listener;
+    }
+
+    public long messages(){
+        return messages.get();
+    }
+
+    public int port(){
+        return serverSocket == null ? port : serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void start(){
+        try {
+            serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not listen for SMTP on port " + port, e);
+        }
+        connections = Executors.newCachedThreadPool();
+        Thread acceptor = new Thread(this::accept, "smtp-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("SMTP stand-in listening on localhost:{} (latency {})", port(), latency);
+    }
+
+    private void accept(){
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warn("SMTP accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket){
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 loadtest ESMTP");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line.toUpperCase(Locale.ROOT) : line.substring(0, 4).toUpperCase(Locale.ROOT);
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 loadtest");
+                    case "MAIL", "NOOP" -> reply(out, "250 OK");
+                    case "RSET" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        recipients.add(address(line));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        readData(in);
+                        long receivedAt = System.nanoTime();
+                        messages.incrementAndGet();
+                        for (String recipient : recipients) {
+                            listener.delivered(recipient, receivedAt);
+                        }
+                        recipients.clear();
+                        if (!latency.isZero()) {
+                            Thread.sleep(latency.toMillis());
+                        }
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void readData(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            // body is not needed
+        }
+    }
+
+    /**
+     * "RCPT TO:&lt;ana@example.com&gt;" -> "ana@example.com"
+     */
+    static String address(String line){
+        int start = line.indexOf('<');
+        int end = line.indexOf('>', start + 1);
+        String address = start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+        return address.toLowerCase(Locale.ROOT);
+    }
+
+    private static void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void stop(){
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            // closing anyway
+        }
+        if (connections != null) {
+            connections.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning(){
+        return serverSocket != null && !serverSocket.isClosed();
+    }
+}
@@ -0,0 +1,25 @@
+package com.ms.loadtest.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LatencyRecorderTest {
+
+    @Test
+    void testStats_ShouldUseNearestRank(){
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 1; i <= 1000; i++) {
+            recorder.record(i * 1_000_000L);
+        }
+
+        var stats = recorder.stats(10);
+
+        assertEquals(1000, stats.count());
+        assertEquals(100.0, stats.perSecond());
+        assertEquals(500.0, stats.p50Ms());
+        assertEquals(990.0, stats.p99Ms());
+        assertEquals(999.0, stats.p999Ms());
+        assertEquals(1000.0, stats.maxMs());
+    }
+}
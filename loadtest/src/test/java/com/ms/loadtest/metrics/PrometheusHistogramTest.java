@@ -0,0 +1,53 @@
+package com.ms.loadtest.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrometheusHistogramTest {
+
+    private static String scrape(int fast, int slow){
+        return """
+                # HELP email_smtp_send_seconds
+                # TYPE email_smtp_send_seconds histogram
+                email_smtp_send_seconds_bucket{application="email",status="SENT",le="0.01"} %d
+                email_smtp_send_seconds_bucket{application="email",status="SENT",le="0.1"} %d
+                email_smtp_send_seconds_bucket{application="email",status="SENT",le="+Inf"} %d
+                email_smtp_send_seconds_bucket{application="email",status="ERROR",le="0.01"} 0
+                email_smtp_send_seconds_bucket{application="email",status="ERROR",le="0.1"} 5
+                email_smtp_send_seconds_bucket{application="email",status="ERROR",le="+Inf"} 5
+                email_smtp_send_seconds_count{application="email",status="SENT"} %d
+                """.formatted(fast, fast + slow, fast + slow, fast + slow);
+    }
+
+    @Test
+    void testDeltaAndQuantiles_ShouldInterpolateWithinBuckets(){
+        PrometheusHistogram before = PrometheusHistogram.parse(scrape(10, 0), "email_smtp_send_seconds", Map.of("status", "SENT"));
+        PrometheusHistogram after = PrometheusHistogram.parse(scrape(60, 50), "email_smtp_send_seconds", Map.of("status", "SENT"));
+
+        PrometheusHistogram delta = after.minus(before);
+
+        assertEquals(100, delta.count());
+        // rank 50 is the last of the 50 samples in [0, 10ms]
+        assertEquals(0.01, delta.quantile(0.50), 1e-9);
+        // rank 99 is the 49th of the 50 samples in (10ms, 100ms]
+        assertEquals(0.01 + 0.09 * 49 / 50, delta.quantile(0.99), 1e-9);
+    }
+
+    @Test
+    void testParse_ShouldSumMatchingSeriesAndSkipOthers(){
+        PrometheusHistogram all = PrometheusHistogram.parse(scrape(1, 2), "email_smtp_send_seconds", Map.of());
+
+        assertEquals(8, all.count());
+        assertEquals(0, PrometheusHistogram.parse(scrape(1, 2), "email_db_save_seconds", Map.of()).count());
+        assertTrue(Double.isNaN(PrometheusHistogram.parse("", "email_db_save_seconds", Map.of()).quantile(0.5)));
+    }
+
+    @Test
+    void testLabels_ShouldUnescapeValues(){
+        assertEquals(Map.of("uri", "/users/{id}", "msg", "a \"b\", c", "le", "0.5"),
+                PrometheusHistogram.labels("uri=\"/users/{id}\",msg=\"a \\\"b\\\", c\",le=\"0.5\""));
+    }
+}
@@ -0,0 +1,62 @@
+package com.ms.loadtest.smtp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SmtpStandInTest {
+
+    private SmtpStandIn smtpStandIn;
+
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp(){
+        smtpStandIn = new SmtpStandIn(0, Duration.ZERO);
+        smtpStandIn.setListener((recipient, receivedNanos) -> delivered.add(recipient));
+        smtpStandIn.start();
+    }
+
+    @AfterEach
+    void tearDown(){
+        smtpStandIn.stop();
+    }
+
+    @Test
+    void testDelivery_ShouldReportEveryRecipientOnceDataIsComplete() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), smtpStandIn.port());
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+            OutputStream out = socket.getOutputStream();
+            assertTrue(in.readLine().startsWith("220"));
+            assertTrue(send(out, in, "EHLO client").startsWith("250"));
+            assertTrue(send(out, in, "MAIL FROM:<noreply@loadtest.local>").startsWith("250"));
+            assertTrue(send(out, in, "RCPT TO:<Ana@Example.com>").startsWith("250"));
+            assertTrue(send(out, in, "RCPT TO:<bia@example.com>").startsWith("250"));
+            assertTrue(send(out, in, "DATA").startsWith("354"));
+            assertTrue(delivered.isEmpty());
+            assertTrue(send(out, in, "Subject: hi\r\n\r\nhello\r\n.").startsWith("250"));
+            assertTrue(send(out, in, "QUIT").startsWith("221"));
+        }
+
+        assertEquals(List.of("ana@example.com", "bia@example.com"), delivered);
+        assertEquals(1, smtpStandIn.messages());
+    }
+
+    private static String send(OutputStream out, BufferedReader in, String line) throws Exception {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return in.readLine();
+    }
+}
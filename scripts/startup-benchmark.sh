@@ -0,0 +1,58 @@
+#!/bin/sh
+# Time to first request of each service, measured from "docker compose start" until the service
+# answers HTTP at all (any status; the health may still be DOWN while a dependency is starting).
+#
+#   scripts/startup-benchmark.sh [runs] [service...]     default: 5 runs of user email gateway
+#
+# Needs the stack built and created once (docker compose up -d --build). Each run stops and
+# starts only the measured container, so its dependencies stay warm. Compare two builds with
+#   docker compose build user                           (plain JIT start, default)
+#   USER_MAVEN_PROFILES=-Paot docker compose build user (AOT)
+set -e
+
+cd "$(dirname "$0")/.."
+[ -f .env ] && . ./.env
+
+RUNS=${1:-5}
+[ $# -gt 0 ] && shift
+SERVICES=${*:-user email gateway}
+
+url(){
+    case "$1" in
+        user) echo "http://localhost:${USER_SERVER_PORT:-8081}/actuator/health" ;;
+        email) echo "http://localhost:${EMAIL_SERVER_PORT:-8082}/actuator/health" ;;
+        gateway) echo "http://localhost:${GATEWAY_SERVER_PORT:-8080}/actuator/health" ;;
+        *) echo "unknown service $1" >&2; exit 1 ;;
+    esac
+}
+
+now_ms(){
+    echo $(($(date +%s%N) / 1000000))
+}
+
+printf '%-8s %8s %8s %8s   %s\n' service min median max "runs (ms)"
+for service in $SERVICES; do
+    target=$(url "$service")
+    times=""
+    i=0
+    while [ $i -lt "$RUNS" ]; do
+        docker compose stop "$service" > /dev/null 2>&1
+        start=$(now_ms)
+        docker compose start "$service" > /dev/null 2>&1
+        until [ "$(curl -s -o /dev/null -w '%{http_code}' "$target")" != "000" ]; do
+            if [ $(($(now_ms) - start)) -gt 300000 ]; then
+                echo "$service did not answer within 300s" >&2
+                exit 1
+            fi
+            sleep 0.1
+        done
+        times="$times $(($(now_ms) - start))"
+        i=$((i + 1))
+    done
+    sorted=$(echo $times | tr ' ' '\n' | sort -n)
+    printf '%-8s %8s %8s %8s  %s\n' "$service" \
+        "$(echo "$sorted" | head -1)" \
+        "$(echo "$sorted" | sed -n "$(((RUNS + 1) / 2))p")" \
+        "$(echo "$sorted" | tail -1)" \
+        "$times"
+done
@@ -0,0 +1,5 @@
+#!/bin/sh
+# Lets the postgres-user-replica service (docker compose --profile replica) stream from this
+# instance. Runs only when the data volume is initialised for the first time.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
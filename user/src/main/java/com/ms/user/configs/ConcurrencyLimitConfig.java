@@ -0,0 +1,35 @@
+package com.ms.user.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.user.limiter.ConcurrencyLimitFilter;
+import com.ms.user.limiter.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+/**
+ * Adaptive load shedding for the servlet /users API; actuator endpoints are not limited.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "user.concurrency-limit.enabled", matchIfMissing = true)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ConcurrencyLimitProperties properties,
+                                                                                 MeterRegistry meterRegistry,
+                                                                                 ObjectMapper objectMapper){
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(properties, meterRegistry, objectMapper));
+        registration.addUrlPatterns("/users", "/users/*");
+        // after tracing/observation filters so rejections are still traced and counted
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 10);
+        return registration;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ms.user.configs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * The class-data-sharing training run of the image build (spring.context.exit=onRefresh) starts
+ * the context without a database. With AOT the Flyway beans cannot be switched off by property at
+ * that point, so the migration itself is skipped.
+ */
+@Configuration
+@Profile("!reactive")
+public class FlywayConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlywayConfig.class);
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment){
+        return flyway -> {
+            if ("onRefresh".equals(environment.getProperty("spring.context.exit"))) {
+                logger.info("Training run, database migrations skipped");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+}
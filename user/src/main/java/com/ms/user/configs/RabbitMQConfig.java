@@ -1,12 +1,25 @@
 package com.ms.user.configs;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class RabbitMQConfig {
+
+    @Value("${broker.exchange.user-events.name}")
+    private String userEventsExchange;
+
+    /**
+     * User change events; every consumer binds its own queue.
+     */
+    @Bean
+    public FanoutExchange userEventsExchange(){
+        return new FanoutExchange(userEventsExchange, true, false);
+    }
     @Bean
     public Jackson2JsonMessageConverter messageConverter(){
         ObjectMapper objectMapper = new ObjectMapper();
@@ -0,0 +1,20 @@
+package com.ms.user.configs;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig {
+
+    /**
+     * Tomcat is on the classpath for the servlet variant and would otherwise be picked for WebFlux
+     * as well; Netty's event loops are what keep per-request memory small.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(){
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,37 @@
+package com.ms.user.configs;
+
+import com.ms.user.spool.MessageSpool;
+import com.ms.user.spool.SpoolJournal;
+import com.ms.user.spool.SpoolProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Local spool for the welcome email messages while the broker is unreachable. The replay waits
+ * for publisher confirms, so spring.rabbitmq.publisher-confirm-type must be simple.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.spool.enabled", matchIfMissing = true)
+@EnableConfigurationProperties(SpoolProperties.class)
+public class SpoolConfig {
+
+    @Bean(destroyMethod = "close")
+    public SpoolJournal spoolJournal(SpoolProperties properties) throws IOException {
+        SpoolJournal journal = new SpoolJournal(properties.getDirectory(),
+                Math.toIntExact(properties.getSegmentSize().toBytes()), properties.getMaxSegments());
+        journal.open();
+        return journal;
+    }
+
+    @Bean
+    public MessageSpool messageSpool(SpoolJournal spoolJournal, RabbitTemplate rabbitTemplate,
+                                     SpoolProperties properties, MeterRegistry meterRegistry){
+        return new MessageSpool(spoolJournal, rabbitTemplate, properties, meterRegistry);
+    }
+}
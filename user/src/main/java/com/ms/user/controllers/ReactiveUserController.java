@@ -0,0 +1,47 @@
+package com.ms.user.controllers;
+
+import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.models.ReactiveUserModel;
+import com.ms.user.services.ReactiveUserService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/users")
+@Profile("reactive")
+public class ReactiveUserController {
+
+    @Autowired
+    ReactiveUserService userService;
+
+    @PostMapping
+    public Mono<ResponseEntity<ReactiveUserModel>> saveUser(@RequestBody @Valid UserRecordDto userRecordDto){
+        return userService.save(userRecordDto)
+                .map(savedUser -> ResponseEntity.status(HttpStatus.CREATED).body(savedUser));
+    }
+    @GetMapping
+    public Flux<ReactiveUserModel> getAllUsers(){
+        return userService.findALL();
+    }
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ReactiveUserModel>> getUserById(@PathVariable UUID id){
+        return userService.findById(id).map(ResponseEntity::ok);
+    }
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<ReactiveUserModel>> updateUser(@PathVariable UUID id, @RequestBody @Valid UserRecordDto userRecordDto){
+        return userService.update(id, userRecordDto).map(ResponseEntity::ok);
+    }
+    @DeleteMapping("{id}")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable UUID id){
+        return userService.delete(id).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+}
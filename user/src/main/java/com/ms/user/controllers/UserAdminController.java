@@ -0,0 +1,59 @@
+package com.ms.user.controllers;
+
+import com.ms.user.dtos.UserImportReport;
+import com.ms.user.services.UserBulkService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+
+/**
+ * Bulk operations for migrations and analytics. Not routed by the gateway; reachable on the
+ * service port only.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/admin/users")
+public class UserAdminController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    @Autowired
+    UserBulkService userBulkService;
+
+    /**
+     * Written synchronously to the servlet output stream, so large exports are not cut off by
+     * the async request timeout.
+     */
+    @GetMapping("/export")
+    public void exportUsers(HttpServletResponse response) throws IOException, SQLException {
+        response.setContentType(TEXT_CSV);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.csv\"");
+        userBulkService.exportCsv(response.getOutputStream());
+    }
+
+    /**
+     * Current state of all users as newline-delimited SNAPSHOT events, for services that keep a
+     * local copy and follow the user change events afterwards.
+     */
+    @GetMapping("/snapshot")
+    public void snapshotUsers(HttpServletResponse response) throws IOException, SQLException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        userBulkService.exportSnapshot(response.getOutputStream());
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV)
+    public ResponseEntity<UserImportReport> importUsers(InputStream csv,
+                                                        @RequestParam(defaultValue = "false") boolean welcomeEmails)
+            throws IOException, SQLException {
+        return ResponseEntity.ok(userBulkService.importCsv(csv, welcomeEmails));
+    }
+}
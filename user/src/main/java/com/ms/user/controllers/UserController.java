@@ -1,19 +1,28 @@
 package com.ms.user.controllers;
 
 import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.dtos.UserSearchPage;
 import com.ms.user.models.UserModel;
 import com.ms.user.services.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.context.annotation.Profile;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/users")
 public class UserController {
 
@@ -25,7 +34,7 @@ public class UserController {
         var userModel = new UserModel();
         BeanUtils.copyProperties(userRecordDto, userModel);
         var savedUser = userService.save(userModel);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(eTag(savedUser.getVersion())).body(savedUser);
 
     }
     @GetMapping
@@ -33,15 +42,49 @@ public class UserController {
         List<UserModel> users = userService.findALL();
         return ResponseEntity.status(HttpStatus.OK).body(users);
     }
+    /**
+     * Sparse fieldset, e.g. {@code ?fields=userId,email}; only those columns are queried.
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllUsers(@RequestParam List<String> fields){
+        return ResponseEntity.ok(userService.findAllFields(fields));
+    }
+    /**
+     * e.g. {@code /users/search?q=ana&field=name&mode=contains&limit=20&after=<nextCursor>}
+     */
+    @GetMapping("/search")
+    public ResponseEntity<UserSearchPage> searchUsers(@RequestParam String q,
+                                                      @RequestParam(defaultValue = "email") String field,
+                                                      @RequestParam(defaultValue = "prefix") String mode,
+                                                      @RequestParam(required = false) String after,
+                                                      @RequestParam(required = false) Integer limit){
+        return ResponseEntity.ok(userService.search(q, field, mode, after, limit));
+    }
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUserById(@PathVariable UUID id, @RequestParam List<String> fields){
+        return ResponseEntity.ok(userService.findFieldsById(id, fields));
+    }
     @GetMapping("/{id}")
-    public ResponseEntity<UserModel> getUserById(@PathVariable UUID id){
+    public ResponseEntity<UserModel> getUserById(@PathVariable UUID id,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if (ifNoneMatch != null) {
+            // only the version column is read; the entity is loaded when it changed
+            Optional<Long> version = userService.findVersion(id);
+            if (version.isPresent() && matches(ifNoneMatch, version.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(version.get())).build();
+            }
+        }
         UserModel user = userService.findById(id);
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok().eTag(eTag(user.getVersion())).body(user);
     }
     @PutMapping("/{id}")
-    ResponseEntity<UserModel> updateUser(@PathVariable UUID id, @RequestBody @Valid UserRecordDto userRecordDto){
-        UserModel updateUser = userService.update(id, userRecordDto);
-        return ResponseEntity.ok(updateUser);
+    ResponseEntity<UserModel> updateUser(@PathVariable UUID id,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                         @RequestBody @Valid UserRecordDto userRecordDto){
+        UserModel updateUser = ifMatch == null
+                ? userService.update(id, userRecordDto)
+                : userService.update(id, userRecordDto, strongVersions(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(updateUser.getVersion())).body(updateUser);
     }
     @DeleteMapping("{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable UUID id){
@@ -49,4 +92,39 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
+    private static String eTag(long version){
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Weak comparison, as If-None-Match requires.
+     */
+    private static boolean matches(String ifNoneMatch, long version){
+        for (ETag tag : ETag.parse(ifNoneMatch)) {
+            if (tag.isWildcard() || tag.tag().equals(String.valueOf(version))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Versions named by If-Match; strong comparison, so weak tags never match. {@code null} for "*".
+     */
+    private static Set<Long> strongVersions(String ifMatch){
+        Set<Long> versions = new HashSet<>();
+        for (ETag tag : ETag.parse(ifMatch)) {
+            if (tag.isWildcard()) {
+                return null;
+            }
+            if (!tag.weak()) {
+                try {
+                    versions.add(Long.parseLong(tag.tag()));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours, cannot match
+                }
+            }
+        }
+        return versions;
+    }
 }
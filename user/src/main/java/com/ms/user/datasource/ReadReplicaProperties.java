@@ -0,0 +1,30 @@
+package com.ms.user.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("user.datasource.replica")
+public class ReadReplicaProperties {
+
+    /**
+     * Route read-only transactions to the replica below; everything else stays on spring.datasource.
+     */
+    private boolean enabled = false;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private int maximumPoolSize = 10;
+
+    /**
+     * After a write, reads from the same client go to the primary for this long, so the client
+     * sees its own change despite replication lag. Zero disables it.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+}
@@ -0,0 +1,52 @@
+package com.ms.user.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary. Must sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so that the
+ * connection is only fetched once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry meterRegistry){
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.primaryRoutes = Counter.builder("user.datasource.routed").tag("target", "primary").register(meterRegistry);
+        this.replicaRoutes = Counter.builder("user.datasource.routed").tag("target", "replica").register(meterRegistry);
+    }
+
+    /**
+     * Forces the primary for reads on the current thread until {@link #clearPrimaryRequired()}.
+     */
+    public static void requirePrimary(){
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static void clearPrimaryRequired(){
+        PRIMARY_REQUIRED.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey(){
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PRIMARY_REQUIRED.get() == null) {
+            replicaRoutes.increment();
+            return Target.REPLICA;
+        }
+        primaryRoutes.increment();
+        return Target.PRIMARY;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ms.user.dtos;
+
+import com.ms.user.enums.UserEventType;
+import com.ms.user.models.UserModel;
+
+import java.util.UUID;
+
+/**
+ * Change event of the user directory. {@code version} is the user's optimistic-lock version and
+ * grows with every change, so consumers keep whichever state has the highest version and can
+ * apply events more than once or out of order. Deletes carry the last version plus one and no
+ * name/email.
+ *
+ * @param occurredAt epoch millis
+ */
+public record UserEventDto(
+        UUID eventId,
+        UserEventType type,
+        UUID userId,
+        long version,
+        String name,
+        String email,
+        long occurredAt) {
+
+    public static UserEventDto of(UserEventType type, UserModel user){
+        if (type == UserEventType.DELETED) {
+            return new UserEventDto(UUID.randomUUID(), type, user.getUserId(), user.getVersion() + 1, null, null, System.currentTimeMillis());
+        }
+        return new UserEventDto(UUID.randomUUID(), type, user.getUserId(), user.getVersion(), user.getName(), user.getEmail(), System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,25 @@
+package com.ms.user.dtos;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code conflicts} lists rejected rows up to
+ * user.bulk.max-reported-conflicts; the counters always cover the whole file.
+ */
+public record UserImportReport(
+        long received,
+        long inserted,
+        long existing,
+        long duplicates,
+        long invalid,
+        long welcomeEmailsQueued,
+        List<Conflict> conflicts,
+        boolean conflictsTruncated) {
+
+    /**
+     * @param line   line in the uploaded file, the header being line 1
+     * @param reason {@code exists}, {@code duplicate} or {@code invalid}
+     */
+    public record Conflict(long line, String email, String reason) {
+    }
+}
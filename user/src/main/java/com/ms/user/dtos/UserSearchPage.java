@@ -0,0 +1,12 @@
+package com.ms.user.dtos;
+
+import com.ms.user.models.UserModel;
+
+import java.util.List;
+
+/**
+ * One page of search results; {@code nextCursor} is passed back as {@code after} for the next
+ * page and is {@code null} on the last one.
+ */
+public record UserSearchPage(List<UserModel> users, String nextCursor) {
+}
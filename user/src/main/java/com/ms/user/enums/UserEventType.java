@@ -0,0 +1,11 @@
+package com.ms.user.enums;
+
+public enum UserEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    /**
+     * Current state as streamed by the snapshot endpoint, applied like an update.
+     */
+    SNAPSHOT
+}
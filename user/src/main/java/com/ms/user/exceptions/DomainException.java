@@ -0,0 +1,12 @@
+package com.ms.user.exceptions;
+
+/**
+ * Base of the exceptions for expected client errors (not found, conflict, invalid input). They
+ * are normal traffic and always end up as an error response, so they are created without a stack
+ * trace; filling it in is most of the cost of a throw.
+ */
+public abstract class DomainException extends RuntimeException{
+    protected DomainException(String message){
+        super(message, null, false, false);
+    }
+}
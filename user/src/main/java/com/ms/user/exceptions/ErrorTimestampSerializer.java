@@ -0,0 +1,24 @@
+package com.ms.user.exceptions;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Writes {@link StandardError#getTimestamp()} in its usual format from the per-second cache of
+ * {@link ErrorTimestamps}.
+ */
+public class ErrorTimestampSerializer extends StdSerializer<Instant> {
+
+    public ErrorTimestampSerializer(){
+        super(Instant.class);
+    }
+
+    @Override
+    public void serialize(Instant value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeString(ErrorTimestamps.format(value));
+    }
+}
@@ -0,0 +1,52 @@
+package com.ms.user.exceptions;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Error timestamps are rendered with second precision, so the {@link Instant} and its formatted
+ * form are created once per second and shared by every error of that second.
+ */
+final class ErrorTimestamps {
+
+    static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss 'Z'").withZone(ZoneOffset.UTC);
+
+    private record Second(long epochSecond, Instant instant, String formatted) {
+    }
+
+    private static volatile Second current = second(System.currentTimeMillis() / 1000);
+
+    private ErrorTimestamps(){
+    }
+
+    /**
+     * The current time truncated to the second.
+     */
+    static Instant now(){
+        return current(System.currentTimeMillis() / 1000).instant();
+    }
+
+    static String format(Instant instant){
+        Second second = current;
+        if (second.epochSecond() == instant.getEpochSecond()) {
+            return second.formatted();
+        }
+        return FORMAT.format(instant);
+    }
+
+    private static Second current(long epochSecond){
+        Second second = current;
+        if (second.epochSecond() != epochSecond) {
+            // racing threads may each build the same value; any of them is correct
+            second = second(epochSecond);
+            current = second;
+        }
+        return second;
+    }
+
+    private static Second second(long epochSecond){
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        return new Second(epochSecond, instant, FORMAT.format(instant));
+    }
+}
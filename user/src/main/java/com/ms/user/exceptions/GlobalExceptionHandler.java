@@ -1,63 +1,89 @@
 package com.ms.user.exceptions;
 
 import jakarta.servlet.http.HttpServletRequest;
-import org.apache.coyote.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import java.time.Instant;
+import org.springframework.context.annotation.Profile;
 
+import java.util.List;
 
+
+/**
+ * Expected client errors are logged through {@link RateLimitedLogger} (per error title), so a burst
+ * of 404s or 409s costs a few log lines; unexpected errors are always logged with their stack trace.
+ */
 @ControllerAdvice
+@Profile("!reactive")
 public class GlobalExceptionHandler {
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    static final int EXPECTED_ERROR_LOGS_PER_SECOND = 10;
+
+    private final RateLimitedLogger expectedErrors = new RateLimitedLogger(logger, EXPECTED_ERROR_LOGS_PER_SECOND);
+
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<StandardError> handleUserNotFound(UserNotFoundException g){
-        logger.warn("User not found: {}", g.getMessage());
-        StandardError error = new StandardError(
-                Instant.now(),
-                HttpStatus.NOT_FOUND.value(),
-                "User Not Found",
-                g.getMessage()
-        );
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        return expected(HttpStatus.NOT_FOUND, "User Not Found", "User not found: {}", g.getMessage(), g.getMessage());
     }
     @ExceptionHandler(ConflictException.class)
-    public ResponseEntity<StandardError> handleConflict(ConflictException ex, HttpServletRequest request){
-        logger.warn("Data conflict: {}", ex.getMessage());
-        StandardError error = new StandardError(
-                Instant.now(),
-                HttpStatus.CONFLICT.value(),
-                "Conflict",
-                ex.getMessage()
-        );
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    public ResponseEntity<StandardError> handleConflict(ConflictException ex){
+        return expected(HttpStatus.CONFLICT, "Conflict", "Data conflict: {}", ex.getMessage(), ex.getMessage());
+    }
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<StandardError> handleInvalidFields(InvalidFieldsException ex){
+        return expected(HttpStatus.BAD_REQUEST, "Invalid Fields", "Invalid fields: {}", ex.getMessage(), ex.getMessage());
+    }
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<StandardError> handleInvalidImport(InvalidImportException ex){
+        return expected(HttpStatus.BAD_REQUEST, "Invalid Import", "Invalid import file: {}", ex.getMessage(), ex.getMessage());
+    }
+    @ExceptionHandler(InvalidSearchException.class)
+    public ResponseEntity<StandardError> handleInvalidSearch(InvalidSearchException ex){
+        return expected(HttpStatus.BAD_REQUEST, "Invalid Search", "Invalid search: {}", ex.getMessage(), ex.getMessage());
+    }
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<StandardError> handleQueryTimeout(QueryTimeoutException ex){
+        return expected(HttpStatus.SERVICE_UNAVAILABLE, "Query Timeout", "Query exceeded its time budget: {}", ex.getMessage(),
+                "The query took too long, please narrow it down.");
+    }
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<StandardError> handlePreconditionFailed(PreconditionFailedException ex){
+        return expected(HttpStatus.PRECONDITION_FAILED, "Precondition Failed", "Precondition failed: {}", ex.getMessage(), ex.getMessage());
+    }
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<StandardError> handleOptimisticLocking(ObjectOptimisticLockingFailureException ex){
+        return expected(HttpStatus.CONFLICT, "Conflict", "Concurrent modification: {}", ex.getMessage(),
+                "The user was modified concurrently, please retry.");
     }
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<StandardError> handleValidation(MethodArgumentNotValidException ex) {
         ValidationError error = new ValidationError(
-                Instant.now(),
+                ErrorTimestamps.now(),
                 HttpStatus.BAD_REQUEST.value(),
                 "Validation Error",
                 "Invalid fields"
         );
-        ex.getBindingResult().getFieldErrors().forEach(e -> {
+        List<FieldError> fieldErrors = ex.getBindingResult().getFieldErrors();
+        for (FieldError e : fieldErrors) {
             error.addError(e.getField(), e.getDefaultMessage());
-            logger.warn("Field validation failed: {} - {}", e.getField(), e.getDefaultMessage());
-        });
-        logger.warn("Validation failed for request: {}", ex.getMessage());
+        }
+        // one line per request; the field names are enough to find the offending client
+        expectedErrors.warn(error.getError(), "Validation failed for {} on fields {}",
+                ex.getParameter().getExecutable().getName(), error.getErrors().keySet());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     @ExceptionHandler(Exception.class)
     public ResponseEntity<StandardError> handleUnexpected(Exception ex, HttpServletRequest request){
-        StandardError error = new StandardError(
-                Instant.now(),
-                HttpStatus.INTERNAL_SERVER_ERROR.value(),
+        StandardError error = StandardError.of(
+                HttpStatus.INTERNAL_SERVER_ERROR,
                 "Unexpected Error",
                 "An internal error occured. Please contact support."
         );
@@ -65,15 +91,13 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
     @ExceptionHandler(InvalidUserDataException.class)
-    public ResponseEntity<StandardError> handleInvalidUserDataException(InvalidUserDataException ex, HttpServletRequest request) {
-        logger.warn("Invalid user data: {}", ex.getMessage());
+    public ResponseEntity<StandardError> handleInvalidUserDataException(InvalidUserDataException ex) {
+        return expected(HttpStatus.BAD_REQUEST, "Invalid User Data", "Invalid user data: {}", ex.getMessage(),
+                "Error to publish message: " + ex.getMessage());
+    }
 
-        StandardError error = new StandardError(
-                Instant.now(),
-                HttpStatus.BAD_REQUEST.value(),
-                "Invalid User Data",
-                "Error to publish message: " + ex.getMessage()
-        );
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    private ResponseEntity<StandardError> expected(HttpStatus status, String title, String logFormat, String logArg, String message){
+        expectedErrors.warn(title, logFormat, logArg);
+        return ResponseEntity.status(status).body(StandardError.of(status, title, message));
     }
 }
@@ -0,0 +1,7 @@
+package com.ms.user.exceptions;
+
+public class InvalidFieldsException extends DomainException{
+    public InvalidFieldsException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ms.user.exceptions;
+
+public class InvalidImportException extends DomainException{
+    public InvalidImportException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ms.user.exceptions;
+
+public class InvalidSearchException extends DomainException{
+    public InvalidSearchException(String message){
+        super(message);
+    }
+}
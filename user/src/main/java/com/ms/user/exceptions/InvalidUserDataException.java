@@ -1,6 +1,6 @@
 package com.ms.user.exceptions;
 
-public class InvalidUserDataException extends RuntimeException{
+public class InvalidUserDataException extends DomainException{
     public InvalidUserDataException(String message){
         super(message);
     }
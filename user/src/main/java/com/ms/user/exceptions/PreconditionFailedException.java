@@ -0,0 +1,7 @@
+package com.ms.user.exceptions;
+
+public class PreconditionFailedException extends DomainException{
+    public PreconditionFailedException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ms.user.exceptions;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WARN logging for expected errors: at most {@code limit} lines per second and category. The
+ * first line after a suppressed stretch says how many were dropped; the full volume is visible in
+ * the http.server.requests metrics. Overloads instead of varargs keep suppressed calls free of
+ * allocation.
+ */
+class RateLimitedLogger {
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final Logger logger;
+
+    private final int limit;
+
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    RateLimitedLogger(Logger logger, int limit){
+        this.logger = logger;
+        this.limit = limit;
+    }
+
+    void warn(String category, String format, Object arg){
+        long suppressed = acquire(category);
+        if (suppressed == 0) {
+            logger.warn(format, arg);
+        } else if (suppressed > 0) {
+            logger.warn(format + " ({} similar messages suppressed)", arg, suppressed);
+        }
+    }
+
+    void warn(String category, String format, Object arg1, Object arg2){
+        long suppressed = acquire(category);
+        if (suppressed == 0) {
+            logger.warn(format, arg1, arg2);
+        } else if (suppressed > 0) {
+            logger.warn(format + " ({} similar messages suppressed)", arg1, arg2, suppressed);
+        }
+    }
+
+    /**
+     * -1 if the line has to be dropped, otherwise the number of lines dropped since the last one.
+     */
+    long acquire(String category){
+        if (!logger.isWarnEnabled()) {
+            return -1;
+        }
+        Window window = windows.get(category);
+        if (window == null) {
+            window = windows.computeIfAbsent(category, key -> new Window());
+        }
+        return window.acquire(System.nanoTime(), limit);
+    }
+
+    private static final class Window {
+
+        private final AtomicLong start = new AtomicLong(System.nanoTime());
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong suppressed = new AtomicLong();
+
+        long acquire(long now, int limit){
+            long windowStart = start.get();
+            if (now - windowStart >= SECOND_NANOS && start.compareAndSet(windowStart, now)) {
+                count.set(0);
+            }
+            if (count.incrementAndGet() > limit) {
+                suppressed.incrementAndGet();
+                return -1;
+            }
+            return suppressed.getAndSet(0);
+        }
+    }
+}
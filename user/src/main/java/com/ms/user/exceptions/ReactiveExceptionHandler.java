@@ -0,0 +1,67 @@
+package com.ms.user.exceptions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+/**
+ * WebFlux twin of {@link GlobalExceptionHandler}: same statuses, error bodies and log sampling,
+ * but without the servlet request types.
+ */
+@ControllerAdvice
+@Profile("reactive")
+public class ReactiveExceptionHandler {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveExceptionHandler.class);
+
+    private final RateLimitedLogger expectedErrors =
+            new RateLimitedLogger(logger, GlobalExceptionHandler.EXPECTED_ERROR_LOGS_PER_SECOND);
+
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<StandardError> handleUserNotFound(UserNotFoundException g){
+        expectedErrors.warn("User Not Found", "User not found: {}", g.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(StandardError.of(HttpStatus.NOT_FOUND, "User Not Found", g.getMessage()));
+    }
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<StandardError> handleConflict(ConflictException ex){
+        expectedErrors.warn("Conflict", "Data conflict: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(StandardError.of(HttpStatus.CONFLICT, "Conflict", ex.getMessage()));
+    }
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<StandardError> handleValidation(WebExchangeBindException ex) {
+        ValidationError error = new ValidationError(
+                ErrorTimestamps.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Validation Error",
+                "Invalid fields"
+        );
+        for (FieldError e : ex.getBindingResult().getFieldErrors()) {
+            error.addError(e.getField(), e.getDefaultMessage());
+        }
+        expectedErrors.warn(error.getError(), "Validation failed for {} on fields {}",
+                ex.getMethodParameter() == null ? "request" : ex.getMethodParameter().getExecutable().getName(), error.getErrors().keySet());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+    @ExceptionHandler(InvalidUserDataException.class)
+    public ResponseEntity<StandardError> handleInvalidUserDataException(InvalidUserDataException ex) {
+        expectedErrors.warn("Invalid User Data", "Invalid user data: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(StandardError.of(HttpStatus.BAD_REQUEST, "Invalid User Data", "Error to publish message: " + ex.getMessage()));
+    }
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<StandardError> handleUnexpected(Exception ex, ServerHttpRequest request){
+        StandardError error = StandardError.of(
+                HttpStatus.INTERNAL_SERVER_ERROR,
+                "Unexpected Error",
+                "An internal error occured. Please contact support."
+        );
+        logger.error("Unexpected error at {} {}: {}", request.getMethod(), request.getPath(), ex.getMessage(), ex);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    }
+}
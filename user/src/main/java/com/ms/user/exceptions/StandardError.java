@@ -1,9 +1,11 @@
 package com.ms.user.exceptions;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
 
 import java.time.Instant;
 
@@ -13,10 +15,14 @@ import java.time.Instant;
 public class StandardError {
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss 'Z'", timezone = "GMT")
+    @JsonSerialize(using = ErrorTimestampSerializer.class)
     private Instant timestamp;
     private int status;
     private String error;
     private String message;
 
+    public static StandardError of(HttpStatus status, String error, String message){
+        return new StandardError(ErrorTimestamps.now(), status.value(), error, message);
+    }
 
 }
@@ -0,0 +1,105 @@
+package com.ms.user.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gradient-style adaptive concurrency limit. Latency is averaged per sample window and compared
+ * with a slow moving baseline: while the two are within {@code tolerance} the limit grows by a
+ * queue allowance of sqrt(limit), once the short-term latency rises above the baseline the limit
+ * shrinks proportionally (by at most half per window).
+ *
+ * <p>Admission is a CAS on the in-flight counter, so rejected requests never wait. The limit
+ * calculation runs under a {@link ReentrantLock} rather than {@code synchronized} to stay
+ * friendly to virtual threads.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final long NO_WINDOW = Long.MIN_VALUE;
+
+    private final ConcurrencyLimitProperties properties;
+    private final ConcurrencyLimitProperties.Budget budget;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double longRttNanos;
+    private long windowStartNanos;
+    private long windowRttSumNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties, ConcurrencyLimitProperties.Budget budget){
+        this.properties = properties;
+        this.budget = budget;
+        this.limit = budget.getInitialLimit();
+        this.windowStartNanos = NO_WINDOW;
+    }
+
+    /**
+     * @return {@code true} if the request was admitted and must be followed by {@link #release}
+     */
+    public boolean tryAcquire(){
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos, long nowNanos){
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        lock.lock();
+        try {
+            if (windowStartNanos == NO_WINDOW) {
+                windowStartNanos = nowNanos;
+            }
+            windowRttSumNanos += rttNanos;
+            windowSamples++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtCompletion);
+            if (windowSamples >= properties.getMinWindowSamples()
+                    && nowNanos - windowStartNanos >= properties.getSampleWindow().toNanos()) {
+                update((double) windowRttSumNanos / windowSamples, windowMaxInFlight);
+                windowStartNanos = nowNanos;
+                windowRttSumNanos = 0;
+                windowSamples = 0;
+                windowMaxInFlight = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(double shortRttNanos, int maxInFlight){
+        if (longRttNanos == 0) {
+            longRttNanos = shortRttNanos;
+        } else {
+            longRttNanos += (shortRttNanos - longRttNanos) * 2.0 / (properties.getLongWindow() + 1);
+        }
+        // latency dropped a lot (e.g. the database recovered): let the baseline catch up quickly
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        // far below the limit the latency says nothing about how much more we could take
+        if (maxInFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getTolerance() * longRttNanos / shortRttNanos));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - properties.getSmoothing()) + estimate * properties.getSmoothing();
+        limit = Math.max(budget.getMinLimit(), Math.min(budget.getMaxLimit(), smoothed));
+    }
+
+    public int getLimit(){
+        return (int) limit;
+    }
+
+    public int getInFlight(){
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,102 @@
+package com.ms.user.limiter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.user.exceptions.StandardError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sheds load in front of the controllers instead of letting requests queue in Tomcat: each
+ * request takes a slot from the read or write {@link AdaptiveConcurrencyLimiter} and is answered
+ * with 503 right away when none is free.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final Counter readRejected;
+    private final Counter writeRejected;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper){
+        this.readLimiter = new AdaptiveConcurrencyLimiter(properties, properties.getRead());
+        this.writeLimiter = new AdaptiveConcurrencyLimiter(properties, properties.getWrite());
+        this.readRejected = register(meterRegistry, "read", readLimiter);
+        this.writeRejected = register(meterRegistry, "write", writeLimiter);
+        this.objectMapper = objectMapper;
+    }
+
+    private static Counter register(MeterRegistry meterRegistry, String budget, AdaptiveConcurrencyLimiter limiter){
+        Gauge.builder("user.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("budget", budget)
+                .register(meterRegistry);
+        Gauge.builder("user.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("budget", budget)
+                .register(meterRegistry);
+        return Counter.builder("user.concurrency.rejected")
+                .description("Requests answered with 503 because the concurrency limit was reached")
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = isRead(request.getMethod());
+        AdaptiveConcurrencyLimiter limiter = read ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            (read ? readRejected : writeRejected).increment();
+            logger.debug("Rejected {} {}: concurrency limit {} reached", request.getMethod(), request.getRequestURI(), limiter.getLimit());
+            reject(response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long now = System.nanoTime();
+            limiter.release(now - start, now);
+        }
+    }
+
+    private static boolean isRead(String method){
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        StandardError error = StandardError.of(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Service Unavailable",
+                "Too many concurrent requests, please retry shortly."
+        );
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    AdaptiveConcurrencyLimiter getReadLimiter(){
+        return readLimiter;
+    }
+
+    AdaptiveConcurrencyLimiter getWriteLimiter(){
+        return writeLimiter;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ms.user.limiter;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("user.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Budget for GET/HEAD/OPTIONS.
+     */
+    private Budget read = new Budget(50, 10, 400);
+
+    /**
+     * Budget for POST/PUT/PATCH/DELETE, kept apart so slow writes cannot starve reads.
+     */
+    private Budget write = new Budget(20, 5, 100);
+
+    /**
+     * How far the short-term latency may rise above the long-term baseline before the limit shrinks.
+     */
+    private double tolerance = 1.5;
+
+    /**
+     * Weight of each new limit estimate; lower values react more slowly but oscillate less.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Number of sample windows the long-term latency baseline averages over.
+     */
+    private int longWindow = 600;
+
+    /**
+     * Minimum duration and sample count of one window before the limit is recalculated.
+     */
+    private Duration sampleWindow = Duration.ofMillis(100);
+
+    private int minWindowSamples = 10;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Budget {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+    }
+}
@@ -0,0 +1,96 @@
+package com.ms.user.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.util.UUID;
+
+/**
+ * R2DBC mapping of TB_USERS for the reactive profile. Column names follow the ones Hibernate
+ * derives for {@link UserModel}, so both variants share one table. Ids are assigned by the
+ * application, hence {@link Persistable} to tell inserts from updates.
+ */
+@Table("tb_users")
+public class ReactiveUserModel implements Persistable<UUID> {
+
+    @Id
+    @Column("user_id")
+    private UUID userId;
+    private String name;
+    private String email;
+
+    @Version
+    @JsonIgnore
+    private long version;
+
+    @Transient
+    @JsonIgnore
+    private boolean newUser;
+
+    public static ReactiveUserModel newUser(String name, String email){
+        ReactiveUserModel user = new ReactiveUserModel();
+        user.setUserId(UUID.randomUUID());
+        user.setName(name);
+        user.setEmail(email);
+        user.newUser = true;
+        return user;
+    }
+
+    public UserModel toUserModel(){
+        UserModel userModel = new UserModel();
+        userModel.setUserId(userId);
+        userModel.setName(name);
+        userModel.setEmail(email);
+        userModel.setVersion(version);
+        return userModel;
+    }
+
+    @Override
+    @JsonIgnore
+    public UUID getId() {
+        return userId;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newUser;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
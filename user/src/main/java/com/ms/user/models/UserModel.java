@@ -1,5 +1,6 @@
 package com.ms.user.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.io.Serializable;
@@ -15,6 +16,15 @@ public class UserModel implements Serializable {
     private String name;
     private String email;
 
+    /**
+     * Optimistic lock, exposed to clients only as the ETag. The column default lets rows
+     * written outside JPA (bulk imports) start at zero.
+     */
+    @Version
+    @JsonIgnore
+    @Column(columnDefinition = "bigint default 0 not null")
+    private long version;
+
     public UUID getUserId() {
         return userId;
     }
@@ -38,4 +48,12 @@ public class UserModel implements Serializable {
     public void setEmail(String email) {
         this.email = email;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
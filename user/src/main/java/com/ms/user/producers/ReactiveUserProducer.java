@@ -0,0 +1,69 @@
+package com.ms.user.producers;
+
+import com.ms.user.models.UserModel;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking facade over {@link UserProducer} and {@link UserEventProducer}. The AMQP client is
+ * blocking, so the publish runs on the bounded elastic scheduler and never on an event-loop
+ * thread; the message itself is built exactly as in the servlet variant. Change events wait for
+ * the commit of the current R2DBC transaction, like the servlet variant's wait for the JPA one.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveUserProducer {
+
+    final UserProducer userProducer;
+
+    final UserEventProducer userEventProducer;
+
+    public ReactiveUserProducer(UserProducer userProducer, UserEventProducer userEventProducer){
+        this.userProducer = userProducer;
+        this.userEventProducer = userEventProducer;
+    }
+
+    public Mono<Void> publishMessageEmail(UserModel userModel){
+        return blocking(() -> userProducer.publishMessageEmail(userModel));
+    }
+
+    public Mono<Void> publishCreated(UserModel userModel){
+        return afterCommit(blocking(() -> userEventProducer.publishCreated(userModel)));
+    }
+
+    public Mono<Void> publishUpdated(UserModel userModel){
+        return afterCommit(blocking(() -> userEventProducer.publishUpdated(userModel)));
+    }
+
+    public Mono<Void> publishDeleted(UserModel userModel){
+        return afterCommit(blocking(() -> userEventProducer.publishDeleted(userModel)));
+    }
+
+    private static Mono<Void> blocking(Runnable publish){
+        return Mono.fromRunnable(publish)
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private static Mono<Void> afterCommit(Mono<Void> publish){
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .flatMap(synchronizations -> {
+                    if (!synchronizations.isSynchronizationActive()) {
+                        return publish;
+                    }
+                    synchronizations.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit(){
+                            return publish;
+                        }
+                    });
+                    return Mono.<Void>empty();
+                })
+                .onErrorResume(NoTransactionException.class, e -> publish);
+    }
+}
@@ -0,0 +1,95 @@
+package com.ms.user.producers;
+
+import com.ms.user.dtos.UserEventDto;
+import com.ms.user.enums.UserEventType;
+import com.ms.user.models.UserModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Publishes user change events to the fanout exchange broker.exchange.user-events.name. Inside a
+ * transaction the event is sent after commit, so rolled back changes are never announced and the
+ * version is the one that was flushed. Events that fail to publish are logged; consumers that
+ * missed some can resynchronise from /admin/users/snapshot.
+ */
+@Component
+public class UserEventProducer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventProducer.class);
+
+    public static final String EVENT_TYPE_HEADER = "x-event-type";
+
+    final RabbitTemplate rabbitTemplate;
+
+    public UserEventProducer(RabbitTemplate rabbitTemplate){
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @Value(value = "${broker.exchange.user-events.name}")
+    private String exchange;
+
+    public void publishCreated(UserModel userModel){
+        afterCommit(() -> publish(UserEventDto.of(UserEventType.CREATED, userModel)));
+    }
+
+    public void publishUpdated(UserModel userModel){
+        afterCommit(() -> publish(UserEventDto.of(UserEventType.UPDATED, userModel)));
+    }
+
+    public void publishDeleted(UserModel userModel){
+        afterCommit(() -> publish(UserEventDto.of(UserEventType.DELETED, userModel)));
+    }
+
+    /**
+     * Created events for already committed users, e.g. a bulk import, on a single channel.
+     */
+    public void publishCreated(List<UserModel> userModels){
+        rabbitTemplate.invoke(operations -> {
+            for (UserModel userModel : userModels) {
+                UserEventDto event = UserEventDto.of(UserEventType.CREATED, userModel);
+                operations.convertAndSend(exchange, "", event, messageProperties(event));
+            }
+            return null;
+        });
+    }
+
+    private void publish(UserEventDto event){
+        try {
+            rabbitTemplate.convertAndSend(exchange, "", event, messageProperties(event));
+        } catch (RuntimeException e) {
+            logger.error("Could not publish {} event for user {}: {}", event.type(), event.userId(), e.getMessage(), e);
+        }
+    }
+
+    private static MessagePostProcessor messageProperties(UserEventDto event){
+        return message -> {
+            var properties = message.getMessageProperties();
+            properties.setMessageId(event.eventId().toString());
+            properties.setCorrelationId(String.valueOf(event.userId()));
+            properties.setHeader(EVENT_TYPE_HEADER, event.type().name());
+            properties.setHeader(UserProducer.PRODUCED_AT_HEADER, event.occurredAt());
+            return message;
+        };
+    }
+
+    private static void afterCommit(Runnable action){
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit(){
+                action.run();
+            }
+        });
+    }
+}
@@ -4,13 +4,28 @@ package com.ms.user.producers;
 import com.ms.user.dtos.EmailDto;
 import com.ms.user.exceptions.InvalidUserDataException;
 import com.ms.user.models.UserModel;
+import com.ms.user.spool.MessageSpool;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.UUID;
+
 @Component
 public class UserProducer {
 
+    /**
+     * Wall-clock time (epoch millis) at which the message was handed to the broker.
+     * The email service uses it to measure queue wait and end-to-end lag.
+     */
+    public static final String PRODUCED_AT_HEADER = "x-produced-at";
+
     final RabbitTemplate rabbitTemplate;
 
     public UserProducer(RabbitTemplate rabbitTemplate){
@@ -19,16 +34,61 @@ public class UserProducer {
     @Value(value = "${broker.queue.email.name}")
     private String routingKey;
 
+    /**
+     * Takes the messages while the broker is unreachable (see user.spool.*); without it a failed
+     * publish fails the registration.
+     */
+    @Autowired(required = false)
+    MessageSpool messageSpool;
+
+    @Timed("user.producer.publish")
     public void publishMessageEmail(UserModel userModel){
+        if (messageSpool != null) {
+            messageSpool.send("", routingKey, toMessage(userModel));
+            return;
+        }
+        rabbitTemplate.convertAndSend("", routingKey, welcomeEmail(userModel), messageProperties(userModel));
+    }
+
+    /**
+     * Publishes a batch of welcome emails on a single channel, e.g. for bulk imports.
+     */
+    @Timed("user.producer.publish.batch")
+    public void publishMessageEmails(List<UserModel> userModels){
+        if (messageSpool != null) {
+            messageSpool.sendAll("", routingKey, userModels.stream().map(this::toMessage).toList());
+            return;
+        }
+        rabbitTemplate.invoke(operations -> {
+            for (UserModel userModel : userModels) {
+                operations.convertAndSend("", routingKey, welcomeEmail(userModel), messageProperties(userModel));
+            }
+            return null;
+        });
+    }
+
+    private Message toMessage(UserModel userModel){
+        Message message = rabbitTemplate.getMessageConverter().toMessage(welcomeEmail(userModel), new MessageProperties());
+        return messageProperties(userModel).postProcessMessage(message);
+    }
 
+    private static EmailDto welcomeEmail(UserModel userModel){
         var emailDto = new EmailDto();
         emailDto.setUserId(userModel.getUserId());
         emailDto.setEmailTo(userModel.getEmail());
         emailDto.setSubject("Registration completed successfully!");
         emailDto.setText(userModel.getName() + " Welcome! \n We appreciate your registration. Enjoy!");
+        return emailDto;
+    }
 
-        rabbitTemplate.convertAndSend("", routingKey, emailDto);
-
+    private static MessagePostProcessor messageProperties(UserModel userModel){
+        return message -> {
+            var properties = message.getMessageProperties();
+            properties.setMessageId(UUID.randomUUID().toString());
+            properties.setCorrelationId(String.valueOf(userModel.getUserId()));
+            properties.setHeader(PRODUCED_AT_HEADER, System.currentTimeMillis());
+            return message;
+        };
     }
 
 
@@ -0,0 +1,11 @@
+package com.ms.user.repositories;
+
+import com.ms.user.models.ReactiveUserModel;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface ReactiveUserRepository extends R2dbcRepository<ReactiveUserModel, UUID> {
+    Mono<Boolean> existsByEmail(String email);
+}
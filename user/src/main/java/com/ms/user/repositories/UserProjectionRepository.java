@@ -0,0 +1,23 @@
+package com.ms.user.repositories;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Sparse reads: only the requested columns are selected and returned as plain maps, so no
+ * entities are created or tracked by the persistence context.
+ */
+public interface UserProjectionRepository {
+
+    /**
+     * Fields that can be requested, named as in the JSON representation of UserModel.
+     */
+    Set<String> FIELDS = Set.of("userId", "name", "email");
+
+    List<Map<String, Object>> findAllFields(List<String> fields);
+
+    Optional<Map<String, Object>> findFieldsById(UUID id, List<String> fields);
+}
@@ -0,0 +1,58 @@
+package com.ms.user.repositories;
+
+import com.ms.user.models.UserModel;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+class UserProjectionRepositoryImpl implements UserProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findAllFields(List<String> fields){
+        return query(null, fields).stream()
+                .map(tuple -> toMap(tuple, fields))
+                .toList();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(UUID id, List<String> fields){
+        return query(id, fields).stream()
+                .findFirst()
+                .map(tuple -> toMap(tuple, fields));
+    }
+
+    private List<Tuple> query(UUID id, List<String> fields){
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<UserModel> root = query.from(UserModel.class);
+        List<Selection<?>> selections = fields.stream()
+                .<Selection<?>>map(field -> root.get(field).alias(field))
+                .toList();
+        query.multiselect(selections);
+        if (id != null) {
+            query.where(builder.equal(root.get("userId"), id));
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private static Map<String, Object> toMap(Tuple tuple, List<String> fields){
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            values.put(field, tuple.get(field));
+        }
+        return values;
+    }
+}
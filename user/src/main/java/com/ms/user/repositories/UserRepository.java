@@ -2,9 +2,14 @@ package com.ms.user.repositories;
 
 import com.ms.user.models.UserModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Optional;
 import java.util.UUID;
 
-public interface UserRepository extends JpaRepository <UserModel, UUID> {
+public interface UserRepository extends JpaRepository <UserModel, UUID>, UserProjectionRepository, UserSearchRepository {
     boolean existsByEmail(String email);
+
+    @Query("select u.version from UserModel u where u.userId = :id")
+    Optional<Long> findVersionById(UUID id);
 }
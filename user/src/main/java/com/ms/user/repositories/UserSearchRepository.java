@@ -0,0 +1,19 @@
+package com.ms.user.repositories;
+
+import com.ms.user.models.UserModel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+public interface UserSearchRepository {
+
+    /**
+     * Users whose lower-cased {@code field} matches the LIKE {@code pattern} (escape character
+     * backslash), ordered by that value and then by id, starting after the given keyset position.
+     *
+     * @param afterValue lower-cased field value of the last row already returned, or {@code null}
+     * @param timeout    statement timeout; JDBC applies it with second granularity
+     */
+    List<UserModel> search(String field, String pattern, String afterValue, UUID afterId, int limit, Duration timeout);
+}
@@ -0,0 +1,52 @@
+package com.ms.user.repositories;
+
+import com.ms.user.models.UserModel;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filters on lower(name) / lower(email) so the expression indexes of V2__search_indexes.sql apply:
+ * text_pattern_ops for prefix matches and pg_trgm for substring matches.
+ */
+class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    private static final String TIMEOUT_HINT = "jakarta.persistence.query.timeout";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserModel> search(String field, String pattern, String afterValue, UUID afterId, int limit, Duration timeout){
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserModel> query = builder.createQuery(UserModel.class);
+        Root<UserModel> root = query.from(UserModel.class);
+        Expression<String> value = builder.lower(root.get(field));
+        Expression<UUID> id = root.get("userId");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(builder.like(value, pattern, '\\'));
+        if (afterValue != null) {
+            predicates.add(builder.or(
+                    builder.greaterThan(value, afterValue),
+                    builder.and(builder.equal(value, afterValue), builder.greaterThan(id, afterId))));
+        }
+        query.select(root)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(builder.asc(value), builder.asc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setHint(TIMEOUT_HINT, Math.toIntExact(timeout.toMillis()))
+                .getResultList();
+    }
+}
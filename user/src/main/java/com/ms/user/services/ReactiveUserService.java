@@ -0,0 +1,134 @@
+package com.ms.user.services;
+
+import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.exceptions.ConflictException;
+import com.ms.user.exceptions.InvalidUserDataException;
+import com.ms.user.exceptions.UserNotFoundException;
+import com.ms.user.models.ReactiveUserModel;
+import com.ms.user.producers.ReactiveUserProducer;
+import com.ms.user.repositories.ReactiveUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Reactive counterpart of {@link UserService} with the same rules and error types. Timings use the
+ * same {@code user.service} timer; {@code @Timed} cannot measure a returned {@link Mono}.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserService {
+
+    @Autowired
+    ReactiveUserRepository userRepository;
+
+    @Autowired
+    ReactiveUserProducer userProducer;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Transactional
+    public Mono<ReactiveUserModel> save(UserRecordDto userRecordDto){
+        ReactiveUserModel newUser = ReactiveUserModel.newUser(userRecordDto.name(), userRecordDto.email());
+        Mono<ReactiveUserModel> saved = userRepository.existsByEmail(newUser.getEmail())
+                .flatMap(existsByEmail -> {
+                    if (existsByEmail) {
+                        return Mono.error(new ConflictException("There's already a user with the email: " + newUser.getEmail()));
+                    }
+                    return userRepository.save(newUser);
+                })
+                .flatMap(userModel -> {
+                    if (userModel.getUserId() == null
+                            || userModel.getEmail() == null
+                            || userModel.getEmail().isBlank()
+                            || userModel.getName() == null
+                            || userModel.getName().isBlank()) {
+                        return Mono.error(new InvalidUserDataException("User has null or empty required fields"));
+                    }
+                    return userProducer.publishMessageEmail(userModel.toUserModel())
+                            .then(userProducer.publishCreated(userModel.toUserModel()))
+                            .thenReturn(userModel);
+                });
+        return timed("save", saved);
+    }
+
+    public Flux<ReactiveUserModel> findALL(){
+        return userRepository.findAll();
+    }
+
+    public Mono<ReactiveUserModel> findById(UUID id){
+        return timed("findById", findUser(id));
+    }
+
+    @Transactional
+    public Mono<ReactiveUserModel> update(UUID id, UserRecordDto userDto){
+        Mono<ReactiveUserModel> updated = findUser(id)
+                .flatMap(userToUpdate -> {
+                    if (userDto.email() == null || userDto.email().isBlank()) {
+                        return Mono.just(userToUpdate);
+                    }
+                    String email = userDto.email().trim();
+                    if (!email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")) {
+                        return Mono.error(new IllegalArgumentException("Invalid email format"));
+                    }
+                    if (email.equals(userToUpdate.getEmail())) {
+                        return Mono.just(userToUpdate);
+                    }
+                    return userRepository.existsByEmail(email).flatMap(exists -> {
+                        if (exists) {
+                            return Mono.error(new ConflictException("There's already a user with the email" + email));
+                        }
+                        userToUpdate.setEmail(email);
+                        return Mono.just(userToUpdate);
+                    });
+                })
+                .flatMap(userToUpdate -> {
+                    if (userDto.name() != null && !userDto.name().isBlank()) {
+                        String name = userDto.name().trim();
+                        if (name.length() < 3) {
+                            return Mono.error(new IllegalArgumentException("Name must be at least 3 characters long"));
+                        }
+                        userToUpdate.setName(name);
+                    }
+                    return userRepository.save(userToUpdate);
+                })
+                .flatMap(updatedUser -> userProducer.publishUpdated(updatedUser.toUserModel()).thenReturn(updatedUser));
+        return timed("update", updated);
+    }
+
+    @Transactional
+    public Mono<Void> delete(UUID id){
+        return timed("delete", findUser(id).flatMap(user -> userRepository.deleteById(id)
+                .then(userProducer.publishDeleted(user.toUserModel()))));
+    }
+
+    private Mono<ReactiveUserModel> findUser(UUID id){
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User not found with id: " + id)));
+    }
+
+    private <T> Mono<T> timed(String operation, Mono<T> mono){
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doOnEach(signal -> {
+                if (signal.isOnComplete() || signal.isOnError()) {
+                    // same tag keys as the @Timed meters of the servlet variant
+                    sample.stop(Timer.builder("user.service")
+                            .tag("class", ReactiveUserService.class.getName())
+                            .tag("method", operation)
+                            .tag("operation", operation)
+                            .tag("exception", signal.isOnError() ? signal.getThrowable().getClass().getSimpleName() : "none")
+                            .register(meterRegistry));
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,288 @@
+package com.ms.user.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ms.user.dtos.UserEventDto;
+import com.ms.user.dtos.UserImportReport;
+import com.ms.user.enums.UserEventType;
+import com.ms.user.exceptions.InvalidImportException;
+import com.ms.user.models.UserModel;
+import com.ms.user.producers.UserEventProducer;
+import com.ms.user.producers.UserProducer;
+import io.micrometer.core.annotation.Timed;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bulk export/import of TB_USERS through the Postgres COPY protocol. Both directions stream
+ * between the HTTP body and the database connection, so memory use does not grow with the file.
+ *
+ * <p>Imports are loaded into a session-local staging table and merged with set-based SQL: rows
+ * are classified as invalid, already existing (same email) or duplicated within the file, and
+ * only the remaining ones are inserted. TB_USERS is locked against concurrent inserts for the
+ * merge so that the email check cannot race with the API.
+ *
+ * <p>The snapshot is the bootstrap for consumers of the user change events: the current state of
+ * every user as NDJSON SNAPSHOT events, read through a server-side cursor.
+ */
+@Service
+@Profile("!reactive")
+public class UserBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserBulkService.class);
+
+    private static final String EXPORT =
+            "COPY tb_users (user_id, name, email) TO STDOUT WITH (FORMAT csv, HEADER)";
+
+    private static final String CREATE_STAGING =
+            "CREATE TEMP TABLE user_import (line bigint GENERATED ALWAYS AS IDENTITY, name text, email text,"
+                    + " user_id uuid DEFAULT gen_random_uuid(), status text)";
+
+    private static final String IMPORT =
+            "COPY user_import (name, email) FROM STDIN WITH (FORMAT csv, HEADER)";
+
+    private static final List<String> MERGE = List.of(
+            // every UPDATE rewrites the rows it touches, so each one is kept as selective as possible
+            "UPDATE user_import SET name = btrim(name), email = btrim(email) WHERE name <> btrim(name) OR email <> btrim(email)",
+            "UPDATE user_import SET status = 'invalid' WHERE name IS NULL OR name = '' OR email IS NULL"
+                    + " OR email !~ '^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$'",
+            "CREATE INDEX ON user_import (email)",
+            "ANALYZE user_import",
+            "LOCK TABLE tb_users IN SHARE ROW EXCLUSIVE MODE",
+            "UPDATE user_import s SET status = 'exists' WHERE status IS NULL"
+                    + " AND EXISTS (SELECT 1 FROM tb_users u WHERE u.email = s.email)",
+            // the first occurrence wins; all rows see the statuses from before this statement
+            "UPDATE user_import s SET status = 'duplicate' WHERE status IS NULL"
+                    + " AND EXISTS (SELECT 1 FROM user_import d WHERE d.email = s.email AND d.line < s.line AND d.status IS NULL)",
+            // rows left without a status are the ones inserted
+            "INSERT INTO tb_users (user_id, name, email, version)"
+                    + " SELECT user_id, name, email, 0 FROM user_import WHERE status IS NULL");
+
+    private static final String COUNTS = "SELECT coalesce(status, 'inserted'), count(*) FROM user_import GROUP BY 1";
+
+    private static final String CONFLICTS =
+            "SELECT line, email, status FROM user_import WHERE status IS NOT NULL ORDER BY line LIMIT ?";
+
+    private static final String INSERTED =
+            "SELECT user_id, name, email FROM user_import WHERE status IS NULL ORDER BY line";
+
+    private static final String SNAPSHOT = "SELECT user_id, name, email, version FROM tb_users";
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    UserProducer userProducer;
+
+    @Autowired
+    UserEventProducer userEventProducer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value(value = "${user.bulk.snapshot-fetch-size:1000}")
+    int snapshotFetchSize;
+
+    @Value(value = "${user.bulk.max-reported-conflicts:1000}")
+    int maxReportedConflicts;
+
+    @Value(value = "${user.bulk.welcome-email-batch-size:500}")
+    int welcomeEmailBatchSize;
+
+    /**
+     * Writes all users as CSV (header user_id,name,email) and returns the number of rows.
+     */
+    @Timed(value = "user.bulk", extraTags = {"operation", "export"})
+    public long exportCsv(OutputStream out) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            return copyManager(connection).copyOut(EXPORT, out);
+        }
+    }
+
+    /**
+     * Writes every user as one SNAPSHOT event per line and returns the number of users. The
+     * events carry the row version, so a consumer that applies the change events published
+     * while the snapshot is read ends up with the latest state either way.
+     */
+    @Timed(value = "user.bulk", extraTags = {"operation", "snapshot"})
+    public long exportSnapshot(OutputStream out) throws SQLException, IOException {
+        long rows = 0;
+        // the generator buffers; flushing after every row would mean one chunk per user
+        ObjectWriter writer = objectMapper.writerFor(UserEventDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            // the Postgres driver only uses a cursor (fetch size) outside of autocommit
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(SNAPSHOT);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                statement.setFetchSize(snapshotFetchSize);
+                long now = System.currentTimeMillis();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        writer.writeValue(generator, new UserEventDto(UUID.randomUUID(), UserEventType.SNAPSHOT,
+                                resultSet.getObject(1, UUID.class), resultSet.getLong(4), resultSet.getString(2), resultSet.getString(3), now));
+                        generator.writeRaw('\n');
+                        rows++;
+                    }
+                }
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Loads a CSV with header name,email. Created events and, if requested, welcome emails for
+     * the inserted users are published in batches after the import has committed.
+     */
+    @Timed(value = "user.bulk", extraTags = {"operation", "import"})
+    public UserImportReport importCsv(InputStream csv, boolean sendWelcomeEmails) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING);
+                long received = copyIn(connection, csv);
+                for (String sql : MERGE) {
+                    statement.execute(sql);
+                }
+                Map<String, Long> counts = counts(statement);
+                List<UserImportReport.Conflict> conflicts = conflicts(connection);
+                connection.commit();
+                logger.info("Imported {} of {} users ({} existing, {} duplicates, {} invalid)", counts.getOrDefault("inserted", 0L),
+                        received, counts.getOrDefault("exists", 0L), counts.getOrDefault("duplicate", 0L), counts.getOrDefault("invalid", 0L));
+
+                long queued = publishInserted(connection, sendWelcomeEmails);
+                boolean truncated = conflicts.size() > maxReportedConflicts;
+                return new UserImportReport(received, counts.getOrDefault("inserted", 0L), counts.getOrDefault("exists", 0L),
+                        counts.getOrDefault("duplicate", 0L), counts.getOrDefault("invalid", 0L), queued,
+                        truncated ? conflicts.subList(0, maxReportedConflicts) : conflicts, truncated);
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                dropStaging(connection);
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static long copyIn(Connection connection, InputStream csv) throws SQLException, IOException {
+        try {
+            return copyManager(connection).copyIn(IMPORT, csv);
+        } catch (SQLException e) {
+            // class 22 (data exception): malformed CSV, wrong column count, bad encoding...
+            if (e.getSQLState() != null && e.getSQLState().startsWith("22")) {
+                throw new InvalidImportException(e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private static Map<String, Long> counts(Statement statement) throws SQLException {
+        Map<String, Long> counts = new HashMap<>();
+        try (ResultSet resultSet = statement.executeQuery(COUNTS)) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getString(1), resultSet.getLong(2));
+            }
+        }
+        return counts;
+    }
+
+    private List<UserImportReport.Conflict> conflicts(Connection connection) throws SQLException {
+        List<UserImportReport.Conflict> conflicts = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(CONFLICTS)) {
+            // one extra row tells whether the list was truncated
+            statement.setInt(1, maxReportedConflicts + 1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    conflicts.add(new UserImportReport.Conflict(resultSet.getLong(1) + 1, resultSet.getString(2), resultSet.getString(3)));
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Streams the inserted rows back from the staging table with a cursor (the connection is
+     * still in manual-commit mode) and publishes them batch by batch. Returns the number of
+     * welcome emails queued.
+     */
+    private long publishInserted(Connection connection, boolean sendWelcomeEmails){
+        long published = 0;
+        List<UserModel> batch = new ArrayList<>(welcomeEmailBatchSize);
+        try (PreparedStatement statement = connection.prepareStatement(INSERTED)) {
+            statement.setFetchSize(welcomeEmailBatchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    UserModel user = new UserModel();
+                    user.setUserId(resultSet.getObject(1, UUID.class));
+                    user.setName(resultSet.getString(2));
+                    user.setEmail(resultSet.getString(3));
+                    batch.add(user);
+                    if (batch.size() == welcomeEmailBatchSize) {
+                        published += publish(batch, sendWelcomeEmails);
+                    }
+                }
+            }
+            published += publish(batch, sendWelcomeEmails);
+        } catch (SQLException | RuntimeException e) {
+            // the users are committed at this point; report what was queued instead of failing
+            logger.error("Publishing imported users stopped after {} users: {}", published, e.getMessage(), e);
+        }
+        return sendWelcomeEmails ? published : 0;
+    }
+
+    private int publish(List<UserModel> batch, boolean sendWelcomeEmails){
+        int size = batch.size();
+        if (size > 0) {
+            userEventProducer.publishCreated(batch);
+            if (sendWelcomeEmails) {
+                userProducer.publishMessageEmails(batch);
+            }
+            batch.clear();
+        }
+        return size;
+    }
+
+    private static void dropStaging(Connection connection){
+        try (Statement statement = connection.createStatement()) {
+            connection.rollback();
+            statement.execute("DROP TABLE IF EXISTS user_import");
+            connection.commit();
+        } catch (SQLException e) {
+            logger.warn("Could not drop the import staging table: {}", e.getMessage());
+        }
+    }
+
+    private static CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+}
@@ -1,23 +1,40 @@
 package com.ms.user.services;
 
 import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.dtos.UserSearchPage;
 import com.ms.user.exceptions.ConflictException;
+import com.ms.user.exceptions.InvalidFieldsException;
+import com.ms.user.exceptions.InvalidSearchException;
 import com.ms.user.exceptions.InvalidUserDataException;
+import com.ms.user.exceptions.PreconditionFailedException;
 import com.ms.user.exceptions.UserNotFoundException;
 import com.ms.user.models.UserModel;
+import com.ms.user.producers.UserEventProducer;
 import com.ms.user.producers.UserProducer;
+import com.ms.user.repositories.UserProjectionRepository;
 import com.ms.user.repositories.UserRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.context.annotation.Profile;
 
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
+@Profile("!reactive")
 public class UserService {
 
     @Autowired
@@ -26,6 +43,19 @@ public class UserService {
     @Autowired
     UserProducer userProducer;
 
+    @Autowired
+    UserEventProducer userEventProducer;
+
+    @Value(value = "${user.search.default-results:20}")
+    int searchDefaultResults;
+
+    @Value(value = "${user.search.max-results:100}")
+    int searchMaxResults;
+
+    @Value(value = "${user.search.timeout:2s}")
+    Duration searchTimeout;
+
+    @Timed(value = "user.service", extraTags = {"operation", "save"})
     @Transactional
     public UserModel save(UserModel userModel){
         boolean existsByEmail = userRepository.existsByEmail(userModel.getEmail());
@@ -42,23 +72,144 @@ public class UserService {
             throw new InvalidUserDataException("User has null or empty required fields");
         }
         userProducer.publishMessageEmail(userModel);
+        userEventProducer.publishCreated(userModel);
         return userModel;
     }
 
+    @Transactional(readOnly = true)
     public List<UserModel> findALL(){
         return userRepository.findAll();
     }
+    @Timed(value = "user.service", extraTags = {"operation", "findById"})
+    @Transactional(readOnly = true)
     public UserModel findById(UUID id){
         return userRepository.findById(id)
         .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
     }
+    @Timed(value = "user.service", extraTags = {"operation", "findAllFields"})
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findAllFields(List<String> fields){
+        return userRepository.findAllFields(validFields(fields));
+    }
+
+    @Timed(value = "user.service", extraTags = {"operation", "findFieldsById"})
+    @Transactional(readOnly = true)
+    public Map<String, Object> findFieldsById(UUID id, List<String> fields){
+        return userRepository.findFieldsById(id, validFields(fields))
+                .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
+    }
+
+    private static List<String> validFields(List<String> fields){
+        LinkedHashSet<String> valid = new LinkedHashSet<>();
+        for (String field : fields) {
+            String trimmed = field.trim();
+            if (!UserProjectionRepository.FIELDS.contains(trimmed)) {
+                throw new InvalidFieldsException("Unknown field '" + trimmed + "', allowed: " + UserProjectionRepository.FIELDS);
+            }
+            valid.add(trimmed);
+        }
+        if (valid.isEmpty()) {
+            throw new InvalidFieldsException("At least one field is required, allowed: " + UserProjectionRepository.FIELDS);
+        }
+        return List.copyOf(valid);
+    }
+
+    /**
+     * Case-insensitive search on name or email. Substring matches need at least three characters
+     * so that the trigram index can be used; page size is capped at user.search.max-results.
+     */
+    @Timed(value = "user.service", extraTags = {"operation", "search"})
+    @Transactional(readOnly = true)
+    public UserSearchPage search(String query, String field, String mode, String after, Integer limit){
+        if (query == null || query.isBlank()) {
+            throw new InvalidSearchException("Query must not be empty");
+        }
+        if (!"name".equals(field) && !"email".equals(field)) {
+            throw new InvalidSearchException("Field must be 'name' or 'email'");
+        }
+        String term = query.trim().toLowerCase(Locale.ROOT);
+        String pattern = switch (mode) {
+            case "prefix" -> escapeLike(term) + "%";
+            case "contains" -> {
+                if (term.length() < 3) {
+                    throw new InvalidSearchException("Substring search needs at least 3 characters");
+                }
+                yield "%" + escapeLike(term) + "%";
+            }
+            default -> throw new InvalidSearchException("Mode must be 'prefix' or 'contains'");
+        };
+        int pageSize = limit == null ? searchDefaultResults : limit;
+        if (pageSize < 1) {
+            throw new InvalidSearchException("Limit must be positive");
+        }
+        pageSize = Math.min(pageSize, searchMaxResults);
+
+        String afterValue = null;
+        UUID afterId = null;
+        if (after != null) {
+            String[] cursor = decodeCursor(after);
+            afterValue = cursor[0];
+            afterId = UUID.fromString(cursor[1]);
+        }
+        // one extra row tells whether there is a next page
+        List<UserModel> users = userRepository.search(field, pattern, afterValue, afterId, pageSize + 1, searchTimeout);
+        if (users.size() <= pageSize) {
+            return new UserSearchPage(users, null);
+        }
+        users = users.subList(0, pageSize);
+        UserModel last = users.get(pageSize - 1);
+        String lastValue = "name".equals(field) ? last.getName() : last.getEmail();
+        return new UserSearchPage(List.copyOf(users), encodeCursor(lastValue.toLowerCase(Locale.ROOT), last.getUserId()));
+    }
+
+    private static String escapeLike(String term){
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String encodeCursor(String value, UUID id){
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((value + "\n" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor){
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('\n');
+            UUID.fromString(decoded.substring(separator + 1));
+            return new String[]{decoded.substring(0, separator), decoded.substring(separator + 1)};
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new InvalidSearchException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Current version of the user without loading it, for conditional GETs.
+     */
+    @Timed(value = "user.service", extraTags = {"operation", "findVersion"})
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(UUID id){
+        return userRepository.findVersionById(id);
+    }
+
+    @Timed(value = "user.service", extraTags = {"operation", "update"})
     @Transactional
     public UserModel update(UUID id, UserRecordDto userDto){
+        return update(id, userDto, null);
+    }
+
+    /**
+     * @param expectedVersions versions the client's If-Match allows, or {@code null} for any
+     */
+    @Timed(value = "user.service", extraTags = {"operation", "update"})
+    @Transactional
+    public UserModel update(UUID id, UserRecordDto userDto, Set<Long> expectedVersions){
         Optional<UserModel> optionalUser = userRepository.findById(id);
         if(optionalUser.isEmpty()){
             throw new UserNotFoundException("User not found with id: " + id);
         }
         UserModel userToUpdate = optionalUser.get();
+        if(expectedVersions != null && !expectedVersions.contains(userToUpdate.getVersion())){
+            throw new PreconditionFailedException("User " + id + " was modified, current version is " + userToUpdate.getVersion());
+        }
         if(userDto.email() != null && !userDto.email().isBlank()) {
             String email = userDto.email().trim();
             if (!email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")) {
@@ -77,13 +228,17 @@ public class UserService {
             userToUpdate.setName(name);
         }
         BeanUtils.copyProperties(userDto, userToUpdate, "id");
-        return userRepository.save(userToUpdate);
+        UserModel updated = userRepository.save(userToUpdate);
+        userEventProducer.publishUpdated(updated);
+        return updated;
     }
 
+    @Timed(value = "user.service", extraTags = {"operation", "delete"})
     @Transactional
     public void delete(UUID id){
-        userRepository.findById(id)
+        UserModel user = userRepository.findById(id)
             .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
         userRepository.deleteById(id);
+        userEventProducer.publishDeleted(user);
     }
 }
@@ -0,0 +1,285 @@
+package com.ms.user.spool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.AmqpResourceNotAvailableException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps publishing available while the broker is not. Messages are sent directly as long as that
+ * works; once a send fails, or the broker blocks the connection, they are appended to the
+ * {@link SpoolJournal} instead, and later ones follow them there so the order is kept. A replayer
+ * thread sends the spooled messages in batches, each confirmed by the broker before the journal
+ * moves past it, and switches back to direct sends once the journal is empty.
+ *
+ * <p>Delivery from the spool is at least once: a batch that was sent but not confirmed is sent
+ * again. Consumers see the original message ids.
+ */
+public class MessageSpool implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSpool.class);
+
+    private final SpoolJournal journal;
+    private final RabbitTemplate rabbitTemplate;
+    private final SpoolProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition spooled = lock.newCondition();
+    private volatile boolean spooling;
+    private volatile boolean blocked;
+    private volatile boolean running;
+    private Thread replayer;
+
+    private final Counter appended;
+    private final Counter replayed;
+    private final Counter rejected;
+
+    public MessageSpool(SpoolJournal journal, RabbitTemplate rabbitTemplate, SpoolProperties properties, MeterRegistry meterRegistry){
+        this.journal = journal;
+        this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+        // messages recovered from the last run go out before any new one
+        this.spooling = journal.depth() > 0;
+        Gauge.builder("user.spool.depth", journal, SpoolJournal::depth)
+                .description("Messages waiting in the publish spool")
+                .register(meterRegistry);
+        Gauge.builder("user.spool.size", journal, SpoolJournal::bytes)
+                .description("Size of the spooled messages")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("user.spool.segments", journal, SpoolJournal::segmentCount)
+                .description("Segment files of the publish spool")
+                .register(meterRegistry);
+        this.appended = counter(meterRegistry, "appended");
+        this.replayed = counter(meterRegistry, "replayed");
+        this.rejected = counter(meterRegistry, "rejected");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome){
+        return Counter.builder("user.spool.messages")
+                .description("Messages that went through the publish spool")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public boolean isSpooling(){
+        return spooling;
+    }
+
+    public void send(String exchange, String routingKey, Message message){
+        if (!spooling) {
+            try {
+                rabbitTemplate.send(exchange, routingKey, message);
+                return;
+            } catch (AmqpException e) {
+                spool(List.of(new SpooledMessage(exchange, routingKey, message)), e);
+                return;
+            }
+        }
+        spool(List.of(new SpooledMessage(exchange, routingKey, message)), null);
+    }
+
+    /**
+     * Sends the messages on a single channel; the ones not sent when the broker fails are spooled.
+     */
+    public void sendAll(String exchange, String routingKey, List<Message> messages){
+        List<SpooledMessage> spooledMessages = messages.stream()
+                .map(message -> new SpooledMessage(exchange, routingKey, message))
+                .toList();
+        if (!spooling) {
+            int[] sent = {0};
+            try {
+                rabbitTemplate.invoke(operations -> {
+                    for (Message message : messages) {
+                        operations.send(exchange, routingKey, message);
+                        sent[0]++;
+                    }
+                    return null;
+                });
+                return;
+            } catch (AmqpException e) {
+                // the failed send may have reached the broker; at least once, like the replay
+                spool(spooledMessages.subList(Math.min(sent[0], messages.size()), messages.size()), e);
+                return;
+            }
+        }
+        spool(spooledMessages, null);
+    }
+
+    private void spool(List<SpooledMessage> messages, AmqpException cause){
+        lock.lock();
+        try {
+            if (!spooling) {
+                spooling = true;
+                logger.warn("Publishing failed ({}), spooling messages to {} until the broker is back",
+                        cause != null ? cause.getMessage() : "connection blocked", journal.getDirectory());
+            }
+            for (SpooledMessage message : messages) {
+                if (!journal.append(message.encode())) {
+                    rejected.increment();
+                    AmqpException full = new AmqpResourceNotAvailableException(
+                            "Publish spool is full (" + properties.getMaxSegments() + " segments)");
+                    if (cause != null) {
+                        full.addSuppressed(cause);
+                    }
+                    throw full;
+                }
+                appended.increment();
+            }
+            spooled.signal();
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onBlocked(ConnectionBlockedEvent event){
+        // sends would hang on a blocked connection, the spool takes them at memory speed instead
+        blocked = true;
+        lock.lock();
+        try {
+            if (!spooling) {
+                spooling = true;
+                logger.warn("Broker blocked the connection ({}), spooling messages to {}",
+                        event.getReason(), journal.getDirectory());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onUnblocked(ConnectionUnblockedEvent event){
+        blocked = false;
+        lock.lock();
+        try {
+            spooled.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void replay(){
+        boolean failing = false;
+        while (running) {
+            try {
+                if (!awaitWork()) {
+                    continue;
+                }
+                SpoolJournal.Batch batch = journal.read(properties.getReplayBatchSize());
+                journal.force();
+                publish(batch);
+                journal.acknowledge(batch);
+                replayed.increment(batch.records().size());
+                if (failing) {
+                    logger.info("Broker is reachable again, replaying {} spooled messages", journal.depth());
+                    failing = false;
+                }
+            } catch (AmqpException | IOException e) {
+                if (!failing) {
+                    logger.warn("Replaying the publish spool failed, retrying every {}: {}",
+                            properties.getRetryInterval(), e.getMessage());
+                    failing = true;
+                } else {
+                    logger.debug("Replaying the publish spool failed: {}", e.getMessage());
+                }
+                pause();
+            }
+        }
+    }
+
+    /**
+     * Waits until there is something to replay; switches back to direct sends when the journal
+     * is empty.
+     */
+    private boolean awaitWork(){
+        lock.lock();
+        try {
+            while (running && (blocked || journal.depth() == 0)) {
+                if (spooling && !blocked) {
+                    spooling = false;
+                    logger.info("Publish spool drained, sending directly again");
+                }
+                spooled.await(properties.getRetryInterval().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publish(SpoolJournal.Batch batch){
+        rabbitTemplate.invoke(operations -> {
+            for (byte[] record : batch.records()) {
+                SpooledMessage message;
+                try {
+                    message = SpooledMessage.decode(record);
+                } catch (IOException e) {
+                    // passed the CRC, so it was written like this; retrying cannot help
+                    logger.error("Dropping an unreadable spool record: {}", e.getMessage());
+                    continue;
+                }
+                operations.send(message.exchange(), message.routingKey(), message.message());
+            }
+            operations.waitForConfirmsOrDie(properties.getConfirmTimeout().toMillis());
+            return null;
+        });
+    }
+
+    private void pause(){
+        try {
+            Thread.sleep(properties.getRetryInterval().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void start(){
+        running = true;
+        replayer = new Thread(this::replay, "user-spool-replayer");
+        replayer.setDaemon(true);
+        replayer.start();
+    }
+
+    @Override
+    public void stop(){
+        running = false;
+        Thread thread = replayer;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(properties.getConfirmTimeout().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        journal.force();
+    }
+
+    @Override
+    public boolean isRunning(){
+        return running;
+    }
+}
@@ -0,0 +1,392 @@
+package com.ms.user.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of memory-mapped segment files. A record is its payload length, the CRC32
+ * of the payload and the payload; segments are zero filled when created, so a zero length marks
+ * the end of the written part. An append is a copy into the mapped buffer, the page cache writes
+ * it back, and full segments are forced to disk when the journal rotates to the next one.
+ *
+ * <p>Records are consumed in append order by a single reader: {@link #read} returns the next
+ * records without consuming them, and {@link #acknowledge} moves the read position past them,
+ * persists it in the checkpoint file and deletes the segments that were read completely. Delivery
+ * is at least once: records read but not yet acknowledged when the process dies are read again.
+ *
+ * <p>{@link #open} recovers the journal from disk. Every segment is scanned and its CRCs checked;
+ * a record with an impossible length or a CRC mismatch is a write torn by a crash, and the
+ * segment ends there.
+ */
+public class SpoolJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolJournal.class);
+
+    static final int RECORD_HEADER = 8;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String CHECKPOINT_TMP = "checkpoint.tmp";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long nextSegmentId = 1;
+    private int readOffset;
+    private long depth;
+    private long bytes;
+
+    public SpoolJournal(Path directory, int segmentSize, int maxSegments){
+        if (segmentSize <= RECORD_HEADER) {
+            throw new IllegalArgumentException("Segment size must be larger than " + RECORD_HEADER + " bytes");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * The next records and the position right after them.
+     */
+    public record Batch(List<byte[]> records, long segmentId, int offset, long bytes) {
+
+        public boolean isEmpty(){
+            return records.isEmpty();
+        }
+    }
+
+    private record Checkpoint(long segmentId, int offset) {
+    }
+
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        int writePosition;
+
+        Segment(long id, Path path, MappedByteBuffer buffer){
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        int remaining(){
+            return buffer.capacity() - writePosition;
+        }
+    }
+
+    public void open() throws IOException {
+        lock.lock();
+        try {
+            if (!Files.isDirectory(directory)) {
+                return;
+            }
+            Checkpoint checkpoint = readCheckpoint();
+            if (checkpoint != null) {
+                nextSegmentId = checkpoint.segmentId();
+            }
+            for (Path path : segmentFiles()) {
+                long id = segmentId(path);
+                if (checkpoint != null && id < checkpoint.segmentId()) {
+                    // read completely before the last run stopped, only the delete was lost
+                    Files.deleteIfExists(path);
+                    continue;
+                }
+                Segment segment = map(path, id);
+                int start = 0;
+                if (checkpoint != null && id == checkpoint.segmentId()) {
+                    start = checkpoint.offset();
+                }
+                recover(segment, start);
+                segments.addLast(segment);
+                nextSegmentId = Math.max(nextSegmentId, id + 1);
+            }
+            if (!segments.isEmpty() && checkpoint != null && segments.peekFirst().id == checkpoint.segmentId()) {
+                readOffset = Math.min(checkpoint.offset(), segments.peekFirst().writePosition);
+            }
+            if (depth > 0) {
+                logger.info("Recovered {} spooled messages ({} bytes in {} segments) from {}",
+                        depth, bytes, segments.size(), directory);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Scans the segment, sets its write position after the last intact record and counts the
+     * records from {@code start} on.
+     */
+    private void recover(Segment segment, int start){
+        ByteBuffer buffer = segment.buffer;
+        int position = 0;
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > buffer.capacity() - position - RECORD_HEADER
+                    || checksum(crc, buffer, position + RECORD_HEADER, length) != buffer.getInt(position + 4)) {
+                logger.warn("Spool segment {} ends with a torn record at offset {}; the rest of the segment is dropped",
+                        segment.path.getFileName(), position);
+                // clear it so that a later recovery cannot take leftovers for records
+                for (int i = position; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+            if (position >= start) {
+                depth++;
+                bytes += RECORD_HEADER + length;
+            }
+            position += RECORD_HEADER + length;
+        }
+        segment.writePosition = position;
+    }
+
+    /**
+     * Appends a record. Returns {@code false} if the journal already has {@code maxSegments}
+     * segments and the record does not fit into the last one.
+     */
+    public boolean append(byte[] payload) throws IOException {
+        int length = RECORD_HEADER + payload.length;
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit into a spool segment");
+        }
+        lock.lock();
+        try {
+            Segment tail = segments.peekLast();
+            if (tail == null || tail.remaining() < length) {
+                if (segments.size() >= maxSegments) {
+                    return false;
+                }
+                if (tail != null) {
+                    tail.buffer.force();
+                }
+                tail = createSegment();
+            }
+            MappedByteBuffer buffer = tail.buffer;
+            int position = tail.writePosition;
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            buffer.put(position + RECORD_HEADER, payload);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            // the length goes last: until it is written the record does not exist
+            buffer.putInt(position, payload.length);
+            tail.writePosition += length;
+            depth++;
+            bytes += length;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code maxRecords} records from the read position on, without consuming them.
+     */
+    public Batch read(int maxRecords){
+        lock.lock();
+        try {
+            List<byte[]> records = new ArrayList<>(Math.min(maxRecords, (int) Math.min(depth, Integer.MAX_VALUE)));
+            Iterator<Segment> iterator = segments.iterator();
+            if (!iterator.hasNext()) {
+                return new Batch(records, nextSegmentId, 0, 0);
+            }
+            Segment segment = iterator.next();
+            int position = readOffset;
+            long batchBytes = 0;
+            while (records.size() < maxRecords) {
+                if (position >= segment.writePosition) {
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    segment = iterator.next();
+                    position = 0;
+                    continue;
+                }
+                int length = segment.buffer.getInt(position);
+                byte[] payload = new byte[length];
+                segment.buffer.get(position + RECORD_HEADER, payload);
+                records.add(payload);
+                position += RECORD_HEADER + length;
+                batchBytes += RECORD_HEADER + length;
+            }
+            return new Batch(records, segment.id, position, batchBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Consumes the records of a batch returned by {@link #read}.
+     */
+    public void acknowledge(Batch batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (!segments.isEmpty() && segments.peekFirst().id < batch.segmentId()) {
+                delete(segments.removeFirst());
+            }
+            readOffset = batch.offset();
+            // a segment read to its end is not needed anymore, even the one appends go to
+            while (!segments.isEmpty() && readOffset >= segments.peekFirst().writePosition) {
+                delete(segments.removeFirst());
+                readOffset = 0;
+            }
+            depth -= batch.records().size();
+            bytes -= batch.bytes();
+            writeCheckpoint(segments.isEmpty() ? nextSegmentId : segments.peekFirst().id, readOffset);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the appended records back to disk.
+     */
+    public void force(){
+        lock.lock();
+        try {
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long depth(){
+        lock.lock();
+        try {
+            return depth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long bytes(){
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int segmentCount(){
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path getDirectory(){
+        return directory;
+    }
+
+    @Override
+    public void close(){
+        lock.lock();
+        try {
+            force();
+            segments.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        Files.createDirectories(directory);
+        long id = nextSegmentId++;
+        Segment segment = map(directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX)), id);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private Segment map(Path path, long id) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // existing segments keep their size if the configured one changed
+            long size = channel.size() > 0 ? channel.size() : segmentSize;
+            return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private void delete(Segment segment) throws IOException {
+        // the mapping stays valid until the buffer is collected
+        Files.deleteIfExists(segment.path);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentId(Path path){
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private Checkpoint readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() != 16
+                || checksum(new CRC32(), buffer, 0, 12) != buffer.getInt(12)) {
+            // replaying from the oldest segment only means sending some messages twice
+            logger.warn("Ignoring the corrupt spool checkpoint in {}", directory);
+            return null;
+        }
+        return new Checkpoint(buffer.getLong(0), buffer.getInt(8));
+    }
+
+    private void writeCheckpoint(long segmentId, int offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16).putLong(segmentId).putInt(offset);
+        buffer.putInt(checksum(new CRC32(), buffer, 0, 12)).flip();
+        Path tmp = directory.resolve(CHECKPOINT_TMP);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int checksum(CRC32 crc, ByteBuffer buffer, int offset, int length){
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
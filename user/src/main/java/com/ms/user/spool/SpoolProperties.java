@@ -0,0 +1,43 @@
+package com.ms.user.spool;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("user.spool")
+public class SpoolProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Directory of the segment files and the replay checkpoint. Nothing is created until the
+     * first message has to be spooled.
+     */
+    private Path directory = Path.of("spool");
+
+    /**
+     * Size of one memory-mapped segment; a record must fit into a single segment.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+    /**
+     * Upper bound of the spool on disk. Once reached, publishes fail as they would without a spool.
+     */
+    private int maxSegments = 64;
+
+    /**
+     * Messages sent on one channel before waiting for the publisher confirms.
+     */
+    private int replayBatchSize = 100;
+
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Pause between replay attempts while the broker is unreachable.
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+}
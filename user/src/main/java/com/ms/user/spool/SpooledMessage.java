@@ -0,0 +1,116 @@
+package com.ms.user.spool;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * A message as it is kept in the spool: exchange, routing key, the properties the producers set
+ * and the body. Header values other than strings, numbers and booleans are stored as strings.
+ */
+record SpooledMessage(String exchange, String routingKey, Message message) {
+
+    private static final int FORMAT = 1;
+
+    private static final byte STRING = 's';
+    private static final byte LONG = 'l';
+    private static final byte INTEGER = 'i';
+    private static final byte BOOLEAN = 'b';
+
+    byte[] encode(){
+        MessageProperties properties = message.getMessageProperties();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + message.getBody().length);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeUTF(exchange);
+            out.writeUTF(routingKey);
+            writeNullable(out, properties.getMessageId());
+            writeNullable(out, properties.getCorrelationId());
+            writeNullable(out, properties.getContentType());
+            writeNullable(out, properties.getContentEncoding());
+            out.writeBoolean(properties.getDeliveryMode() != MessageDeliveryMode.NON_PERSISTENT);
+            Map<String, Object> headers = properties.getHeaders();
+            out.writeShort(headers.size());
+            for (Map.Entry<String, Object> header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                writeHeaderValue(out, header.getValue());
+            }
+            out.writeInt(message.getBody().length);
+            out.write(message.getBody());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static SpooledMessage decode(byte[] record) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT) {
+                throw new IOException("Unknown spool record format " + format);
+            }
+            String exchange = in.readUTF();
+            String routingKey = in.readUTF();
+            MessageProperties properties = new MessageProperties();
+            properties.setMessageId(readNullable(in));
+            properties.setCorrelationId(readNullable(in));
+            properties.setContentType(readNullable(in));
+            properties.setContentEncoding(readNullable(in));
+            properties.setDeliveryMode(in.readBoolean() ? MessageDeliveryMode.PERSISTENT : MessageDeliveryMode.NON_PERSISTENT);
+            int headers = in.readUnsignedShort();
+            for (int i = 0; i < headers; i++) {
+                String name = in.readUTF();
+                properties.setHeader(name, readHeaderValue(in));
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new SpooledMessage(exchange, routingKey, new Message(body, properties));
+        }
+    }
+
+    private static void writeHeaderValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INTEGER);
+            out.writeInt(i);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else {
+            out.writeByte(STRING);
+            out.writeUTF(String.valueOf(value));
+        }
+    }
+
+    private static Object readHeaderValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case LONG -> in.readLong();
+            case INTEGER -> in.readInt();
+            case BOOLEAN -> in.readBoolean();
+            case STRING -> in.readUTF();
+            default -> throw new IOException("Unknown spool header type " + type);
+        };
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
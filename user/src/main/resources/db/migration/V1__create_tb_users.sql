@@ -0,0 +1,12 @@
+-- TB_USERS as previously created by Hibernate (ddl-auto=update). IF NOT EXISTS lets databases
+-- that were created that way adopt the migrations (spring.flyway.baseline-on-migrate).
+CREATE TABLE IF NOT EXISTS tb_users (
+    user_id uuid NOT NULL,
+    email varchar(255),
+    name varchar(255),
+    version bigint DEFAULT 0 NOT NULL,
+    CONSTRAINT tb_users_pkey PRIMARY KEY (user_id)
+);
+
+-- tables created before optimistic versioning
+ALTER TABLE tb_users ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
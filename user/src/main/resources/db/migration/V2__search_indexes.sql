@@ -0,0 +1,15 @@
+-- Indexes for GET /users/search. Prefix matches use text_pattern_ops, substring matches use
+-- trigrams.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_tb_users_name_prefix ON tb_users (lower(name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_tb_users_email_prefix ON tb_users (lower(email) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_tb_users_name_trgm ON tb_users USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_tb_users_email_trgm ON tb_users USING gin (lower(email) gin_trgm_ops);
+
+-- exact email lookups: existsByEmail and the conflict check of bulk imports
+CREATE INDEX IF NOT EXISTS idx_tb_users_email ON tb_users (email);
+
+-- keyset pagination orders by the lower-cased value, then by id
+CREATE INDEX IF NOT EXISTS idx_tb_users_name_keyset ON tb_users (lower(name), user_id);
+CREATE INDEX IF NOT EXISTS idx_tb_users_email_keyset ON tb_users (lower(email), user_id);
@@ -0,0 +1,226 @@
+package com.ms.user;
+
+import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.models.UserModel;
+import com.ms.user.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Platform versus virtual request threads against a slow database and a slow broker, both
+ * simulated in-process so only the threading model differs. The database allows
+ * {@code loadtest.db-connections} concurrent queries, like a connection pool would.
+ * Not part of the regular build:
+ *
+ * <pre>
+ * mvn -Pjava21 test -Dtest=VirtualThreadsLoadTest -Dloadtest=true [-Dloadtest.db-latency-ms=50 -Dloadtest.concurrency=1000]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualThreadsLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsLoadTest.class);
+
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 20_000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 1000);
+    private static final long DB_LATENCY_MS = Long.getLong("loadtest.db-latency-ms", 50);
+    private static final long BROKER_LATENCY_MS = Long.getLong("loadtest.broker-latency-ms", 5);
+    private static final int DB_CONNECTIONS = Integer.getInteger("loadtest.db-connections", 400);
+
+    @Test
+    void compareVirtualWithPlatformThreads(){
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        logger.info("{}", platform);
+        logger.info("{}", virtual);
+        assertEquals(REQUESTS, platform.succeeded);
+        assertEquals(REQUESTS, virtual.succeeded);
+    }
+
+    private Result run(boolean virtualThreads){
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.threads.virtual.enabled", String.valueOf(virtualThreads));
+        properties.put("spring.autoconfigure.exclude", String.join(",",
+                "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+                "org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration",
+                "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+                "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration",
+                "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration",
+                "org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration",
+                "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration",
+                "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration"));
+        properties.put("RABBITMQ_ADDRESSES", "localhost:5672");
+        properties.put("BROKER_QUEUE_EMAIL_NAME", "loadtest");
+        properties.put("management.tracing.enabled", "false");
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        threads.resetPeakThreadCount();
+        long rssBefore = residentSetKb();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(UserApplication.class, SlowBackends.class)
+                .properties(properties)
+                .run();
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            WebClient client = WebClient.builder()
+                    .baseUrl("http://localhost:" + port)
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(
+                            ConnectionProvider.builder("loadtest").maxConnections(CONCURRENCY).pendingAcquireMaxCount(-1).build())))
+                    .build();
+
+            load(client, Math.min(REQUESTS, 2000), new long[Math.min(REQUESTS, 2000)]);
+            long[] latencies = new long[REQUESTS];
+            long start = System.nanoTime();
+            long succeeded = load(client, REQUESTS, latencies);
+            long elapsed = System.nanoTime() - start;
+
+            int peakThreads = threads.getPeakThreadCount();
+            long rssAfter = residentSetKb();
+            System.gc();
+            long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            return new Result(virtualThreads ? "virtual" : "platform", succeeded, elapsed, latencies, peakThreads,
+                    heapUsed / (1024 * 1024), (rssAfter - rssBefore) / 1024);
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * 80% reads, 20% creates (which also publish to the broker).
+     */
+    private static long load(WebClient client, int requests, long[] latencies){
+        AtomicLong succeeded = new AtomicLong();
+        Flux.range(0, requests)
+                .flatMap(i -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    Mono<?> call = i % 5 == 0
+                            ? client.post().uri("/users").bodyValue(new UserRecordDto("User " + i, "user" + i + "@example.com"))
+                                    .retrieve().toBodilessEntity()
+                            : client.get().uri("/users/{id}", UUID.randomUUID()).retrieve().toBodilessEntity();
+                    return call.doOnSuccess(response -> {
+                                latencies[i] = System.nanoTime() - start;
+                                succeeded.incrementAndGet();
+                            })
+                            .onErrorResume(e -> Mono.empty());
+                }), CONCURRENCY)
+                .blockLast();
+        return succeeded.get();
+    }
+
+    private static long residentSetKb(){
+        try {
+            return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                    .findFirst()
+                    .orElse(-1L);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Registered as a source, not scanned: plain class without {@code @Configuration}.
+     */
+    static class SlowBackends {
+
+        private final Semaphore connections = new Semaphore(DB_CONNECTIONS);
+
+        @Bean
+        UserRepository userRepository(){
+            return Mockito.mock(UserRepository.class, invocation -> {
+                String method = invocation.getMethod().getName();
+                query();
+                return switch (method) {
+                    case "findById" -> {
+                        UserModel user = new UserModel();
+                        user.setUserId(invocation.getArgument(0));
+                        user.setName("Name");
+                        user.setEmail("name@example.com");
+                        yield Optional.of(user);
+                    }
+                    case "existsByEmail" -> false;
+                    case "save" -> {
+                        UserModel user = invocation.getArgument(0);
+                        user.setUserId(UUID.randomUUID());
+                        yield user;
+                    }
+                    default -> null;
+                };
+            });
+        }
+
+        @Bean
+        RabbitTemplate rabbitTemplate(){
+            RabbitTemplate template = Mockito.mock(RabbitTemplate.class);
+            Mockito.doAnswer(invocation -> {
+                Thread.sleep(BROKER_LATENCY_MS);
+                return null;
+            }).when(template).convertAndSend(Mockito.anyString(), Mockito.anyString(), Mockito.any(Object.class),
+                    Mockito.any(MessagePostProcessor.class));
+            return template;
+        }
+
+        private void query() throws InterruptedException {
+            connections.acquire();
+            try {
+                Thread.sleep(DB_LATENCY_MS);
+            } finally {
+                connections.release();
+            }
+        }
+    }
+
+    private record Result(String mode, long succeeded, long elapsedNanos, long[] latencies, int peakThreads,
+                          long heapUsedMb, long rssGrowthMb) {
+
+        private double percentileMillis(double percentile){
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%-8s ok=%d throughput=%.0f req/s p50=%.1fms p99=%.1fms peak-threads=%d heap-after-gc=%dMB rss-growth=%dMB",
+                    mode, succeeded, succeeded / (elapsedNanos / 1e9), percentileMillis(0.50), percentileMillis(0.99),
+                    peakThreads, heapUsedMb, rssGrowthMb);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.ms.user.controllers;
+
+import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.exceptions.ConflictException;
+import com.ms.user.exceptions.UserNotFoundException;
+import com.ms.user.models.ReactiveUserModel;
+import com.ms.user.services.ReactiveUserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveUserController.class)
+@ActiveProfiles("reactive")
+public class ReactiveUserControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private ReactiveUserService userService;
+
+    private UUID userId;
+    private ReactiveUserModel userModel;
+
+    @BeforeEach
+    void setUp(){
+        userModel = ReactiveUserModel.newUser("Name", "email@example.com");
+        userId = userModel.getUserId();
+    }
+    @Test
+    void testGetUserById_ShouldReturnUser(){
+        when(userService.findById(userId)).thenReturn(Mono.just(userModel));
+        webTestClient.get().uri("/users/{id}", userId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.userId").isEqualTo(userId.toString())
+                .jsonPath("$.name").isEqualTo("Name")
+                .jsonPath("$.email").isEqualTo("email@example.com")
+                .jsonPath("$.new").doesNotExist();
+    }
+    @Test
+    void testGetUserById_WhenUserDoesNotExist_ShouldReturn404(){
+        when(userService.findById(userId)).thenReturn(Mono.error(new UserNotFoundException("User not found")));
+        webTestClient.get().uri("/users/{id}", userId)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("User Not Found");
+    }
+    @Test
+    void testGetAllUsers_ShouldStreamUsers(){
+        when(userService.findALL()).thenReturn(Flux.just(userModel));
+        webTestClient.get().uri("/users")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].userId").isEqualTo(userId.toString());
+    }
+    @Test
+    void testSaveUser_ShouldReturnCreatedUser(){
+        when(userService.save(Mockito.any(UserRecordDto.class))).thenReturn(Mono.just(userModel));
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRecordDto("Name", "email@example.com"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.userId").isEqualTo(userId.toString());
+    }
+    @Test
+    void testSaveUser_WhenEmailExists_ShouldReturnConflict(){
+        when(userService.save(Mockito.any(UserRecordDto.class)))
+                .thenReturn(Mono.error(new ConflictException("There's already a user with the email: email@example.com")));
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRecordDto("Name", "email@example.com"))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+    @Test
+    void testCreateUser_InvalidEmail_ShouldReturnBadRequest(){
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRecordDto("Name", "invalidEmail"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.email").exists();
+    }
+    @Test
+    void testDeleteUser_ShouldReturnNoContent(){
+        when(userService.delete(userId)).thenReturn(Mono.empty());
+        webTestClient.delete().uri("/users/{id}", userId)
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+}
@@ -0,0 +1,87 @@
+package com.ms.user.controllers;
+
+import com.ms.user.dtos.UserImportReport;
+import com.ms.user.exceptions.InvalidImportException;
+import com.ms.user.services.UserBulkService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UserAdminController.class)
+public class UserAdminControllerTest {
+
+    @Autowired
+    private MockMvc mockmvc;
+
+    @MockitoBean
+    private UserBulkService userBulkService;
+
+    @Test
+    void testExport_ShouldStreamCsv() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("user_id,name,email\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        }).when(userBulkService).exportCsv(any(OutputStream.class));
+
+        mockmvc.perform(get("/admin/users/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.csv\""))
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("user_id,name,email\n"));
+    }
+
+    @Test
+    void testSnapshot_ShouldStreamNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"type\":\"SNAPSHOT\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(userBulkService).exportSnapshot(any(OutputStream.class));
+
+        mockmvc.perform(get("/admin/users/snapshot"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string("{\"type\":\"SNAPSHOT\"}\n"));
+    }
+
+    @Test
+    void testImport_ShouldReturnReport() throws Exception {
+        UserImportReport report = new UserImportReport(2, 1, 1, 0, 0, 1,
+                List.of(new UserImportReport.Conflict(2, "taken@example.com", "exists")), false);
+        when(userBulkService.importCsv(any(InputStream.class), eq(true))).thenReturn(report);
+
+        mockmvc.perform(post("/admin/users/import").param("welcomeEmails", "true")
+                        .contentType("text/csv")
+                        .content("name,email\nTaken,taken@example.com\nNew,new@example.com\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.welcomeEmailsQueued").value(1))
+                .andExpect(jsonPath("$.conflicts[0].reason").value("exists"));
+    }
+
+    @Test
+    void testImport_WhenCsvIsMalformed_ShouldReturn400() throws Exception {
+        when(userBulkService.importCsv(any(InputStream.class), eq(false)))
+                .thenThrow(new InvalidImportException("unterminated CSV quoted field"));
+
+        mockmvc.perform(post("/admin/users/import").contentType("text/csv").content("name,email\n\"x"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Import"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.ms.user.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.user.models.UserModel;
+import com.ms.user.repositories.UserRepository;
+import com.ms.user.support.RoundTripCounter;
+import com.ms.user.support.RoundTripCountingConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Regression guard for the cost of each /users route: SQL statements, JDBC round trips and AMQP
+ * publishes per request, on an in-memory database and without a broker. A change that adds a
+ * query (an N+1, a lazy load, an extra existence check) or a publish fails here with the SQL
+ * that was run; when a route legitimately gets cheaper, lower its budget.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:budget;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.rabbitmq.addresses=localhost:1",
+        "BROKER_QUEUE_EMAIL_NAME=email",
+        "management.tracing.sampling.probability=0",
+        "user.concurrency-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(RoundTripCountingConfig.class)
+public class UserControllerRoundTripBudgetTest {
+
+    @Autowired
+    private MockMvc mockmvc;
+
+    @Autowired
+    private RoundTripCounter counter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UserModel user;
+
+    @BeforeEach
+    void setUp(){
+        userRepository.deleteAll();
+        user = new UserModel();
+        user.setName("Budget User");
+        user.setEmail("budget." + UUID.randomUUID() + "@example.com");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void saveUser(){
+        expect(post("/users").contentType(MediaType.APPLICATION_JSON).content(body("New User", "new.user@example.com")),
+                status().isCreated(), 2, 3, 2);
+    }
+
+    @Test
+    void getAllUsers(){
+        expect(get("/users"), status().isOk(), 1, 2, 0);
+    }
+
+    @Test
+    void getAllUsersFields(){
+        expect(get("/users").param("fields", "userId,email"), status().isOk(), 1, 2, 0);
+    }
+
+    @Test
+    void searchUsers(){
+        expect(get("/users/search").param("q", "budget"), status().isOk(), 1, 2, 0);
+    }
+
+    @Test
+    void getUserByIdFields(){
+        expect(get("/users/{id}", user.getUserId()).param("fields", "email"), status().isOk(), 1, 2, 0);
+    }
+
+    @Test
+    void getUserById(){
+        expect(get("/users/{id}", user.getUserId()), status().isOk(), 1, 2, 0);
+    }
+
+    @Test
+    void getUserById_WhenNotModified(){
+        expect(get("/users/{id}", user.getUserId()).header("If-None-Match", "\"" + user.getVersion() + "\""),
+                status().isNotModified(), 1, 2, 0);
+    }
+
+    @Test
+    void updateUser(){
+        expect(put("/users/{id}", user.getUserId()).contentType(MediaType.APPLICATION_JSON).content(body("Renamed User", "renamed.user@example.com")),
+                status().isOk(), 3, 4, 1);
+    }
+
+    @Test
+    void updateUser_WhenVersionMatches(){
+        expect(put("/users/{id}", user.getUserId()).header("If-Match", "\"" + user.getVersion() + "\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body("Renamed User", "renamed.user@example.com")),
+                status().isOk(), 3, 4, 1);
+    }
+
+    @Test
+    void deleteUser(){
+        expect(delete("/users/{id}", user.getUserId()), status().isNoContent(), 2, 3, 1);
+    }
+
+    private void expect(RequestBuilder request, ResultMatcher status, int statements, int roundTrips, int publishes){
+        counter.reset();
+        try {
+            mockmvc.perform(request).andExpect(status);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        RoundTripCounter.Counts counts = counter.counts();
+        assertTrue(counts.statements() <= statements,
+                () -> "SQL statements " + counts.statements() + " > budget " + statements + ": " + counts.statementLog());
+        assertTrue(counts.roundTrips() <= roundTrips,
+                () -> "JDBC round trips " + counts.roundTrips() + " > budget " + roundTrips + ": " + counts.statementLog());
+        assertTrue(counts.publishes() <= publishes,
+                () -> "AMQP publishes " + counts.publishes() + " > budget " + publishes + ": " + counts.publishLog());
+    }
+
+    private String body(String name, String email){
+        try {
+            return objectMapper.writeValueAsString(Map.of("name", name, "email", email));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.ms.user.controllers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.dtos.UserSearchPage;
+import com.ms.user.exceptions.InvalidFieldsException;
+import com.ms.user.exceptions.PreconditionFailedException;
 import com.ms.user.exceptions.UserNotFoundException;
 import com.ms.user.models.UserModel;
 import com.ms.user.services.UserService;
@@ -14,10 +17,14 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -54,6 +61,33 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.email").value("email@example.com"));
     }
     @Test
+    void testGetUserById_ShouldReturnVersionAsETag() throws Exception {
+        userModel.setVersion(3);
+        when(userService.findById(userId)).thenReturn(userModel);
+        mockmvc.perform(get("/users/{id}", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+    @Test
+    void testGetUserById_WhenETagMatches_ShouldReturn304WithoutLoadingUser() throws Exception {
+        when(userService.findVersion(userId)).thenReturn(Optional.of(3L));
+        mockmvc.perform(get("/users/{id}", userId).header("If-None-Match", "W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""));
+        Mockito.verify(userService, Mockito.never()).findById(userId);
+    }
+    @Test
+    void testGetUserById_WhenETagIsStale_ShouldReturnUser() throws Exception {
+        userModel.setVersion(4);
+        when(userService.findVersion(userId)).thenReturn(Optional.of(4L));
+        when(userService.findById(userId)).thenReturn(userModel);
+        mockmvc.perform(get("/users/{id}", userId).header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.name").value("Name"));
+    }
+    @Test
     void testGetUserById_WhenUserDoesNotExist_ShouldReturn404() throws Exception{
         when(userService.findById(userId)).thenThrow(new UserNotFoundException("User not found"));
         mockmvc.perform(get("/users/{id}", userId))
@@ -72,6 +106,46 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$[0].email").value("email@example.com"));
     }
     @Test
+    void testGetAllUsers_WithFields_ShouldReturnOnlyRequestedFields() throws Exception{
+        when(userService.findAllFields(List.of("userId", "email")))
+                .thenReturn(List.of(Map.of("userId", userId, "email", "email@example.com")));
+
+        mockmvc.perform(get("/users").param("fields", "userId,email"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].userId").value(userId.toString()))
+                .andExpect(jsonPath("$[0].email").value("email@example.com"))
+                .andExpect(jsonPath("$[0].name").doesNotExist());
+        Mockito.verify(userService, Mockito.never()).findALL();
+    }
+    @Test
+    void testGetUserById_WithFields_ShouldReturnOnlyRequestedFields() throws Exception{
+        when(userService.findFieldsById(userId, List.of("name"))).thenReturn(Map.of("name", "Name"));
+
+        mockmvc.perform(get("/users/{id}", userId).param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Name"))
+                .andExpect(jsonPath("$.userId").doesNotExist());
+    }
+    @Test
+    void testGetAllUsers_WithUnknownField_ShouldReturn400() throws Exception{
+        when(userService.findAllFields(List.of("password")))
+                .thenThrow(new InvalidFieldsException("Unknown field 'password'"));
+
+        mockmvc.perform(get("/users").param("fields", "password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Fields"));
+    }
+    @Test
+    void testSearchUsers_ShouldReturnPageWithCursor() throws Exception{
+        when(userService.search("ema", "email", "prefix", null, 10))
+                .thenReturn(new UserSearchPage(List.of(userModel), "next"));
+
+        mockmvc.perform(get("/users/search").param("q", "ema").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].email").value("email@example.com"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+    @Test
     void testSaveUser_ShouldReturnCreateUser() throws Exception {
         UserRecordDto userRecordDto = new UserRecordDto("Name", "email@example.com");
         UserModel userModel = new UserModel();
@@ -160,6 +234,30 @@ public class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
     @Test
+    void testUpdateUser_WithIfMatch_ShouldPassExpectedVersions() throws Exception {
+        UserRecordDto dto = new UserRecordDto("Update Name", "update@example.com");
+        userModel.setVersion(4);
+        when(userService.update(Mockito.eq(userId), Mockito.any(UserRecordDto.class), Mockito.eq(Set.of(3L))))
+                .thenReturn(userModel);
+        mockmvc.perform(put("/users/{id}", userId)
+                .header("If-Match", "\"3\", W/\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+    @Test
+    void testUpdateUser_WhenVersionChanged_ShouldReturn412() throws Exception {
+        UserRecordDto dto = new UserRecordDto("Update Name", "update@example.com");
+        when(userService.update(Mockito.eq(userId), Mockito.any(UserRecordDto.class), Mockito.any()))
+                .thenThrow(new PreconditionFailedException("User was modified"));
+        mockmvc.perform(put("/users/{id}", userId)
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isPreconditionFailed());
+    }
+    @Test
     void testDeleteUser_ShouldReturnNoContent() throws Exception {
         Mockito.doNothing().when(userService).delete(userId);
         mockmvc.perform(delete("/users/{id}", userId))
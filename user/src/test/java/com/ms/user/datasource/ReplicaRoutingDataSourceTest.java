@@ -0,0 +1,115 @@
+package com.ms.user.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReplicaRoutingDataSource routing;
+    private LazyConnectionDataSourceProxy dataSource;
+    private TransactionTemplate transactions;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mockDataSource();
+        replica = mockDataSource();
+        routing = new ReplicaRoutingDataSource(primary, replica, new SimpleMeterRegistry());
+        routing.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        clearInvocations(primary, replica);
+    }
+
+    @AfterEach
+    void tearDown(){
+        ReplicaRoutingDataSource.clearPrimaryRequired();
+    }
+
+    private static DataSource mockDataSource() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    private void query(boolean readOnly){
+        transactions.setReadOnly(readOnly);
+        transactions.executeWithoutResult(status -> {
+            try {
+                DataSourceUtils.getConnection(dataSource).createStatement().execute("select 1");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldUseReplica() throws SQLException {
+        query(true);
+
+        verify(replica).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void writeTransaction_ShouldUsePrimary() throws SQLException {
+        query(false);
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldUsePrimaryWhenRequired() throws SQLException {
+        ReplicaRoutingDataSource.requirePrimary();
+
+        query(true);
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void readYourWritesFilter_ShouldPinReadsAfterAWriteToThePrimary() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("PUT", "/users/1"), writeResponse, (req, res) -> {});
+        Cookie cookie = writeResponse.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/users/1");
+        read.setCookies(cookie);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            filter.doFilter(read, new MockHttpServletResponse(),
+                    (req, res) -> assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routing.determineCurrentLookupKey()));
+            assertEquals(ReplicaRoutingDataSource.Target.REPLICA, routing.determineCurrentLookupKey());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.ms.user.exceptions;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per 404: the former path (stack trace, WARN line, new Instant formatted by Jackson)
+ * against {@link GlobalExceptionHandler}. The exception is thrown {@code depth} frames down to
+ * stand in for the servlet and Spring frames above a controller. Run with the GC profiler:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.ms.user.exceptions.ErrorPathBenchmark
+ * </pre>
+ *
+ * Logging stays enabled at WARN but without appenders, so the cost of creating the events is
+ * counted and the cost of writing them is not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ErrorPathBenchmark.class);
+
+    @Param({"20", "120"})
+    int depth;
+
+    private ObjectMapper objectMapper;
+
+    private GlobalExceptionHandler handler;
+
+    private String message;
+
+    static class LegacyNotFoundException extends RuntimeException {
+        LegacyNotFoundException(String message){
+            super(message);
+        }
+    }
+
+    record LegacyError(
+            @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss 'Z'", timezone = "GMT")
+            Instant timestamp,
+            int status,
+            String error,
+            String message) {
+    }
+
+    @Setup
+    public void setUp(){
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).detachAndStopAllAppenders();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.WARN);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        handler = new GlobalExceptionHandler();
+        message = "User not found with id: " + UUID.randomUUID();
+    }
+
+    private void throwAt(int frames, RuntimeException exception){
+        if (frames > 0) {
+            throwAt(frames - 1, exception);
+            return;
+        }
+        throw exception;
+    }
+
+    private RuntimeException legacyAt(int frames){
+        if (frames > 0) {
+            return legacyAt(frames - 1);
+        }
+        return new LegacyNotFoundException(message);
+    }
+
+    private RuntimeException domainAt(int frames){
+        if (frames > 0) {
+            return domainAt(frames - 1);
+        }
+        return new UserNotFoundException(message);
+    }
+
+    @Benchmark
+    public byte[] legacyNotFound() throws Exception {
+        try {
+            throwAt(0, legacyAt(depth));
+            return null;
+        } catch (LegacyNotFoundException e) {
+            logger.warn("User not found: {}", e.getMessage());
+            return objectMapper.writeValueAsBytes(new LegacyError(Instant.now(), 404, "User Not Found", e.getMessage()));
+        }
+    }
+
+    @Benchmark
+    public byte[] notFound() throws Exception {
+        try {
+            throwAt(0, domainAt(depth));
+            return null;
+        } catch (UserNotFoundException e) {
+            return objectMapper.writeValueAsBytes(handler.handleUserNotFound(e).getBody());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ErrorPathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
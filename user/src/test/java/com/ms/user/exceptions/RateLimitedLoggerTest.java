@@ -0,0 +1,51 @@
+package com.ms.user.exceptions;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RateLimitedLoggerTest {
+
+    @Test
+    void shouldDropLinesOverTheLimitPerCategory(){
+        Logger logger = mock(Logger.class);
+        when(logger.isWarnEnabled()).thenReturn(true);
+        RateLimitedLogger limited = new RateLimitedLogger(logger, 2);
+
+        for (int i = 0; i < 5; i++) {
+            limited.warn("User Not Found", "User not found: {}", i);
+        }
+        limited.warn("Conflict", "Data conflict: {}", "x");
+
+        verify(logger).warn("User not found: {}", (Object) 0);
+        verify(logger).warn("User not found: {}", (Object) 1);
+        verify(logger, never()).warn("User not found: {}", (Object) 2);
+        verify(logger).warn("Data conflict: {}", (Object) "x");
+        assertEquals(-1, limited.acquire("User Not Found"));
+    }
+
+    @Test
+    void shouldReportSuppressedLinesWhenTheNextSecondStarts() throws InterruptedException {
+        Logger logger = mock(Logger.class);
+        when(logger.isWarnEnabled()).thenReturn(true);
+        RateLimitedLogger limited = new RateLimitedLogger(logger, 1);
+
+        limited.warn("Conflict", "Data conflict: {}", "a");
+        limited.warn("Conflict", "Data conflict: {}", "b");
+        limited.warn("Conflict", "Data conflict: {}", "c");
+        Thread.sleep(1_050);
+        limited.warn("Conflict", "Data conflict: {}", "d");
+
+        verify(logger).warn("Data conflict: {} ({} similar messages suppressed)", "d", 2L);
+    }
+
+    @Test
+    void domainExceptionsShouldNotCaptureStackTraces(){
+        assertEquals(0, new UserNotFoundException("missing").getStackTrace().length);
+        assertEquals(0, new ConflictException("taken").getStackTrace().length);
+        assertEquals(0, new InvalidUserDataException("blank").getStackTrace().length);
+    }
+}
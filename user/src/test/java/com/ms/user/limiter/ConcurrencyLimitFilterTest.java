@@ -0,0 +1,110 @@
+package com.ms.user.limiter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitFilterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private ConcurrencyLimitProperties properties(int initialLimit){
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setRead(new ConcurrencyLimitProperties.Budget(initialLimit, 2, 100));
+        properties.setWrite(new ConcurrencyLimitProperties.Budget(initialLimit, 2, 100));
+        properties.setSampleWindow(Duration.ZERO);
+        properties.setMinWindowSamples(1);
+        properties.setSmoothing(1.0);
+        return properties;
+    }
+
+    @Test
+    void limiter_ShouldRejectWhenAllSlotsAreTaken(){
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties(2), properties(2).getRead());
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void limiter_ShouldGrowWhileLatencyIsStable(){
+        ConcurrencyLimitProperties properties = properties(10);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, properties.getRead());
+
+        long now = 0;
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                limiter.tryAcquire();
+            }
+            while (limiter.getInFlight() > 0) {
+                limiter.release(10 * MS, now += MS);
+            }
+        }
+
+        assertTrue(limiter.getLimit() > 10, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void limiter_ShouldShrinkWhenLatencyRises(){
+        ConcurrencyLimitProperties properties = properties(50);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, properties.getRead());
+
+        long now = 0;
+        for (int i = 0; i < 10; i++) {
+            long rtt = (i == 0 ? 10 : 200) * MS;
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                limiter.tryAcquire();
+            }
+            while (limiter.getInFlight() > 0) {
+                limiter.release(rtt, now += MS);
+            }
+        }
+
+        assertTrue(limiter.getLimit() < 10, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void filter_ShouldAnswer503WithoutCallingTheChainWhenSaturated() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties(1), registry, objectMapper);
+        filter.getReadLimiter().tryAcquire();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> fail("chain must not be called");
+        filter.doFilter(new MockHttpServletRequest("GET", "/users"), response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("Service Unavailable"));
+        assertEquals(1.0, registry.get("user.concurrency.rejected").tag("budget", "read").counter().count());
+        assertEquals(0.0, registry.get("user.concurrency.rejected").tag("budget", "write").counter().count());
+    }
+
+    @Test
+    void filter_ShouldKeepWritesAvailableWhenReadsAreSaturated() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties(1), new SimpleMeterRegistry(), new ObjectMapper());
+        filter.getReadLimiter().tryAcquire();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/users"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertEquals(0, filter.getWriteLimiter().getInFlight());
+        assertEquals(1, (int) filter.getReadLimiter().getLimit());
+    }
+}
@@ -0,0 +1,81 @@
+package com.ms.user.producers;
+
+import com.ms.user.dtos.UserEventDto;
+import com.ms.user.enums.UserEventType;
+import com.ms.user.models.UserModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class UserEventProducerTest {
+
+    private RabbitTemplate rabbitTemplate;
+
+    private UserEventProducer userEventProducer;
+
+    @BeforeEach
+    void setUp(){
+        rabbitTemplate = mock(RabbitTemplate.class);
+        userEventProducer = new UserEventProducer(rabbitTemplate);
+        ReflectionTestUtils.setField(userEventProducer, "exchange", "user.events");
+    }
+
+    @AfterEach
+    void tearDown(){
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static UserModel user(long version){
+        UserModel user = new UserModel();
+        user.setUserId(UUID.randomUUID());
+        user.setName("Ana");
+        user.setEmail("ana@x.com");
+        user.setVersion(version);
+        return user;
+    }
+
+    @Test
+    void testPublishUpdated_InsideTransaction_ShouldWaitForCommitAndUseFlushedVersion(){
+        TransactionSynchronizationManager.initSynchronization();
+        UserModel user = user(3);
+
+        userEventProducer.publishUpdated(user);
+        verifyNoInteractions(rabbitTemplate);
+
+        user.setVersion(4);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        ArgumentCaptor<UserEventDto> event = ArgumentCaptor.forClass(UserEventDto.class);
+        verify(rabbitTemplate).convertAndSend(eq("user.events"), eq(""), event.capture(), any(MessagePostProcessor.class));
+        assertEquals(UserEventType.UPDATED, event.getValue().type());
+        assertEquals(4, event.getValue().version());
+    }
+
+    @Test
+    void testPublishDeleted_ShouldSendTombstoneWithNextVersion(){
+        UserModel user = user(7);
+
+        userEventProducer.publishDeleted(user);
+
+        ArgumentCaptor<UserEventDto> event = ArgumentCaptor.forClass(UserEventDto.class);
+        verify(rabbitTemplate).convertAndSend(eq("user.events"), eq(""), event.capture(), any(MessagePostProcessor.class));
+        assertEquals(UserEventType.DELETED, event.getValue().type());
+        assertEquals(8, event.getValue().version());
+        assertNull(event.getValue().email());
+    }
+}
@@ -0,0 +1,132 @@
+package com.ms.user.services;
+
+import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.exceptions.ConflictException;
+import com.ms.user.exceptions.UserNotFoundException;
+import com.ms.user.models.ReactiveUserModel;
+import com.ms.user.models.UserModel;
+import com.ms.user.producers.ReactiveUserProducer;
+import com.ms.user.repositories.ReactiveUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReactiveUserServiceTest {
+    @InjectMocks
+    private ReactiveUserService userService;
+
+    @Mock
+    private ReactiveUserRepository userRepository;
+
+    @Mock
+    private ReactiveUserProducer userProducer;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp(){
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testSaveUser_WhenEmailDoesNotExist_ShouldInsertAndPublish(){
+        when(userRepository.existsByEmail("unique@gmail.com")).thenReturn(Mono.just(false));
+        when(userRepository.save(any(ReactiveUserModel.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(userProducer.publishMessageEmail(any(UserModel.class))).thenReturn(Mono.empty());
+        when(userProducer.publishCreated(any(UserModel.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.save(new UserRecordDto("Name", "unique@gmail.com")))
+                .assertNext(saved -> {
+                    assertNotNull(saved.getUserId());
+                    assertTrue(saved.isNew());
+                    assertEquals("unique@gmail.com", saved.getEmail());
+                })
+                .verifyComplete();
+        verify(userProducer).publishMessageEmail(any(UserModel.class));
+        verify(userProducer).publishCreated(argThat(user -> "unique@gmail.com".equals(user.getEmail())));
+        assertEquals(1, meterRegistry.get("user.service").tag("operation", "save").timer().count());
+    }
+    @Test
+    void testSaveUser_WhenEmailAlreadyExists_ShouldFailWithConflict(){
+        when(userRepository.existsByEmail("duplicate@gmail.com")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(userService.save(new UserRecordDto("Name", "duplicate@gmail.com")))
+                .expectError(ConflictException.class)
+                .verify();
+        verify(userRepository, never()).save(any(ReactiveUserModel.class));
+        verifyNoInteractions(userProducer);
+    }
+    @Test
+    void testUpdateUser_WhenEmailAlreadyExists_ShouldFailWithConflict(){
+        UUID id = UUID.randomUUID();
+        ReactiveUserModel existing = new ReactiveUserModel();
+        existing.setUserId(id);
+        existing.setEmail("old@gmail.com");
+        when(userRepository.findById(id)).thenReturn(Mono.just(existing));
+        when(userRepository.existsByEmail("existing@gmail.com")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(userService.update(id, new UserRecordDto("New Name", "existing@gmail.com")))
+                .expectErrorMessage("There's already a user with the emailexisting@gmail.com")
+                .verify();
+    }
+    @Test
+    void testUpdateUser_WhenDataIsValid_ShouldUpdateUser(){
+        UUID id = UUID.randomUUID();
+        ReactiveUserModel existing = new ReactiveUserModel();
+        existing.setUserId(id);
+        existing.setEmail("old@gmail.com");
+        when(userRepository.findById(id)).thenReturn(Mono.just(existing));
+        when(userRepository.existsByEmail("new@gmail.com")).thenReturn(Mono.just(false));
+        when(userRepository.save(existing)).thenReturn(Mono.just(existing));
+        when(userProducer.publishUpdated(any(UserModel.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.update(id, new UserRecordDto(" New Name ", "new@gmail.com")))
+                .assertNext(updated -> {
+                    assertEquals("new@gmail.com", updated.getEmail());
+                    assertEquals("New Name", updated.getName());
+                    assertFalse(updated.isNew());
+                })
+                .verifyComplete();
+        verify(userProducer).publishUpdated(argThat(user -> "new@gmail.com".equals(user.getEmail())));
+    }
+    @Test
+    void testDeleteUser_WhenUserExists_ShouldDeleteAndPublish(){
+        UUID id = UUID.randomUUID();
+        ReactiveUserModel existing = new ReactiveUserModel();
+        existing.setUserId(id);
+        existing.setVersion(3);
+        when(userRepository.findById(id)).thenReturn(Mono.just(existing));
+        when(userRepository.deleteById(id)).thenReturn(Mono.empty());
+        when(userProducer.publishDeleted(any(UserModel.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.delete(id)).verifyComplete();
+
+        var order = inOrder(userRepository, userProducer);
+        order.verify(userRepository).deleteById(id);
+        order.verify(userProducer).publishDeleted(argThat(user -> id.equals(user.getUserId()) && user.getVersion() == 3));
+    }
+    @Test
+    void testDeleteUser_WhenUserDoesNotExist_ShouldFailWithNotFound(){
+        UUID id = UUID.randomUUID();
+        when(userRepository.findById(id)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.delete(id))
+                .expectError(UserNotFoundException.class)
+                .verify();
+        verify(userRepository, never()).deleteById(id);
+        verifyNoInteractions(userProducer);
+    }
+}
@@ -1,17 +1,27 @@
 package com.ms.user.services;
 
 import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.dtos.UserSearchPage;
 import com.ms.user.exceptions.ConflictException;
+import com.ms.user.exceptions.InvalidFieldsException;
+import com.ms.user.exceptions.InvalidSearchException;
+import com.ms.user.exceptions.PreconditionFailedException;
 import com.ms.user.exceptions.UserNotFoundException;
 import com.ms.user.models.UserModel;
+import com.ms.user.producers.UserEventProducer;
 import com.ms.user.repositories.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +34,9 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserEventProducer userEventProducer;
+
     @BeforeEach
     void setUp(){
         MockitoAnnotations.openMocks(this);
@@ -115,6 +128,80 @@ public class UserServiceTest {
         assertEquals("new@gmail.com", update.getEmail());
         assertEquals("New Name", update.getName());
         verify(userRepository).save(existing);
+        verify(userEventProducer).publishUpdated(existing);
+    }
+    private UserModel user(String name, String email){
+        UserModel user = new UserModel();
+        user.setUserId(UUID.randomUUID());
+        user.setName(name);
+        user.setEmail(email);
+        return user;
+    }
+    private void searchSettings(int maxResults){
+        ReflectionTestUtils.setField(userService, "searchDefaultResults", 20);
+        ReflectionTestUtils.setField(userService, "searchMaxResults", maxResults);
+        ReflectionTestUtils.setField(userService, "searchTimeout", Duration.ofSeconds(2));
+    }
+    @Test
+    void testSearch_ShouldEscapeWildcardsAndCapPageSize(){
+        searchSettings(50);
+        when(userRepository.search(any(), any(), any(), any(), anyInt(), any())).thenReturn(List.of());
+
+        userService.search(" A_b%", "email", "prefix", null, 500);
+
+        verify(userRepository).search("email", "a\\_b\\%%", null, null, 51, Duration.ofSeconds(2));
+    }
+    @Test
+    void testSearch_WhenMoreRowsExist_ShouldReturnCursorForNextPage(){
+        searchSettings(100);
+        UserModel first = user("Ana", "ana@x.com");
+        UserModel second = user("Anabel", "anabel@x.com");
+        when(userRepository.search(eq("name"), eq("%ana%"), isNull(), isNull(), eq(2), any()))
+                .thenReturn(List.of(first, second));
+
+        UserSearchPage page = userService.search("ana", "name", "contains", null, 1);
+
+        assertEquals(List.of(first), page.users());
+        assertNotNull(page.nextCursor());
+
+        when(userRepository.search(eq("name"), eq("%ana%"), eq("ana"), eq(first.getUserId()), eq(2), any()))
+                .thenReturn(List.of(second));
+        UserSearchPage next = userService.search("ana", "name", "contains", page.nextCursor(), 1);
+
+        assertEquals(List.of(second), next.users());
+        assertNull(next.nextCursor());
+    }
+    @Test
+    void testSearch_WhenSubstringIsTooShort_ShouldThrowInvalidSearch(){
+        searchSettings(100);
+        assertThrows(InvalidSearchException.class, () -> userService.search("an", "name", "contains", null, null));
+        assertThrows(InvalidSearchException.class, () -> userService.search("ana", "password", "prefix", null, null));
+        assertThrows(InvalidSearchException.class, () -> userService.search("ana", "name", "prefix", "not-a-cursor", null));
+        verifyNoInteractions(userRepository);
+    }
+    @Test
+    void testFindAllFields_ShouldQueryDistinctValidFields(){
+        when(userRepository.findAllFields(List.of("userId", "email"))).thenReturn(List.of(Map.of("userId", "1", "email", "a@b.c")));
+
+        assertEquals(1, userService.findAllFields(List.of("userId", " email", "userId")).size());
+        verify(userRepository).findAllFields(List.of("userId", "email"));
+    }
+    @Test
+    void testFindAllFields_WhenFieldIsUnknown_ShouldThrowInvalidFields(){
+        assertThrows(InvalidFieldsException.class, () -> userService.findAllFields(List.of("userId", "password")));
+        verifyNoInteractions(userRepository);
+    }
+    @Test
+    void testUpdateUser_WhenVersionDoesNotMatch_ShouldThrowPreconditionFailed(){
+        UUID id = UUID.randomUUID();
+        UserModel existing = new UserModel();
+        existing.setVersion(5);
+        UserRecordDto dto = new UserRecordDto("New Name", "new@gmail.com");
+        when(userRepository.findById(id)).thenReturn(Optional.of(existing));
+
+        assertThrows(PreconditionFailedException.class, () -> userService.update(id, dto, Set.of(4L)));
+        verify(userRepository, never()).save(any(UserModel.class));
+        verifyNoInteractions(userEventProducer);
     }
     @Test
     void testUpdateUser_WhenEmailIsInvalid_ShouldThrowIllegalArgumentException(){
@@ -160,6 +247,7 @@ public class UserServiceTest {
 
         userService.delete(id);
         verify(userRepository).deleteById(id);
+        verify(userEventProducer).publishDeleted(user);
     }
     @Test
     void testDeleteUser_WhenUserDoesNotExist_ShouldThrowException(){
@@ -0,0 +1,117 @@
+package com.ms.user.spool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class MessageSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private RabbitTemplate rabbitTemplate;
+    private SpoolJournal journal;
+    private MessageSpool messageSpool;
+    private final List<String> replayed = new CopyOnWriteArrayList<>();
+    private volatile boolean brokerUp;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        journal = new SpoolJournal(directory, 4096, 4);
+        journal.open();
+        SpoolProperties properties = new SpoolProperties();
+        properties.setRetryInterval(Duration.ofMillis(20));
+        messageSpool = new MessageSpool(journal, rabbitTemplate, properties, new SimpleMeterRegistry());
+
+        doThrow(new AmqpConnectException(new ConnectException("Connection refused")))
+                .when(rabbitTemplate).send(any(String.class), any(String.class), any(Message.class));
+        RabbitOperations operations = mock(RabbitOperations.class);
+        doAnswer(invocation -> {
+            Message message = invocation.getArgument(2);
+            replayed.add(message.getMessageProperties().getMessageId() + ":" + new String(message.getBody(), StandardCharsets.UTF_8));
+            return null;
+        }).when(operations).send(eq("ex"), eq("queue"), any(Message.class));
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> {
+            if (!brokerUp) {
+                throw new AmqpConnectException(new ConnectException("Connection refused"));
+            }
+            RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0);
+            return callback.doInRabbit(operations);
+        });
+    }
+
+    @AfterEach
+    void tearDown(){
+        messageSpool.stop();
+    }
+
+    private static Message message(String id, String body){
+        MessageProperties properties = new MessageProperties();
+        properties.setMessageId(id);
+        properties.setHeader("x-produced-at", 42L);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    @Test
+    void testSend_WhenBrokerIsDown_ShouldSpoolAndReplayInOrderOnceItIsBack() throws Exception {
+        messageSpool.start();
+
+        messageSpool.send("ex", "queue", message("1", "first"));
+        messageSpool.sendAll("ex", "queue", List.of(message("2", "second"), message("3", "third")));
+
+        assertTrue(messageSpool.isSpooling());
+        assertEquals(3, journal.depth());
+        // only the first send tried the broker, later ones queue up behind the spooled message
+        verify(rabbitTemplate, times(1)).send(any(String.class), any(String.class), any(Message.class));
+
+        brokerUp = true;
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while ((journal.depth() > 0 || messageSpool.isSpooling()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(List.of("1:first", "2:second", "3:third"), replayed);
+        assertFalse(messageSpool.isSpooling());
+        assertEquals(0, journal.depth());
+    }
+
+    @Test
+    void testSpooledMessage_ShouldRoundTripPropertiesAndBody() throws IOException {
+        Message message = message("id-1", "body");
+        message.getMessageProperties().setCorrelationId("user-1");
+        message.getMessageProperties().setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        message.getMessageProperties().setHeader("__TypeId__", "com.ms.user.dtos.EmailDto");
+
+        SpooledMessage decoded = SpooledMessage.decode(new SpooledMessage("", "email.queue", message).encode());
+
+        MessageProperties properties = decoded.message().getMessageProperties();
+        assertEquals("email.queue", decoded.routingKey());
+        assertEquals("id-1", properties.getMessageId());
+        assertEquals("user-1", properties.getCorrelationId());
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, properties.getContentType());
+        assertEquals(42L, (Long) properties.getHeader("x-produced-at"));
+        assertEquals("com.ms.user.dtos.EmailDto", properties.getHeader("__TypeId__"));
+        assertArrayEquals("body".getBytes(StandardCharsets.UTF_8), decoded.message().getBody());
+    }
+}
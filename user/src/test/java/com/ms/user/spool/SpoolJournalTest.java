@@ -0,0 +1,117 @@
+package com.ms.user.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpoolJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] record(String text){
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> texts(SpoolJournal.Batch batch){
+        return batch.records().stream().map(bytes -> new String(bytes, StandardCharsets.UTF_8)).toList();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    @Test
+    void testAppendAndRead_ShouldKeepOrderUntilAcknowledged() throws IOException {
+        SpoolJournal journal = new SpoolJournal(directory, 1024, 4);
+        journal.open();
+        journal.append(record("a"));
+        journal.append(record("b"));
+        journal.append(record("c"));
+
+        SpoolJournal.Batch first = journal.read(2);
+        assertEquals(List.of("a", "b"), texts(first));
+        assertEquals(List.of("a", "b"), texts(journal.read(2)));
+
+        journal.acknowledge(first);
+        assertEquals(1, journal.depth());
+        assertEquals(List.of("c"), texts(journal.read(10)));
+    }
+
+    @Test
+    void testAppend_WhenSegmentIsFull_ShouldRotateAndDeleteReadSegments() throws IOException {
+        // 8 byte header + 40 byte payload: two records per segment
+        SpoolJournal journal = new SpoolJournal(directory, 100, 3);
+        journal.open();
+        for (int i = 0; i < 6; i++) {
+            assertTrue(journal.append(record(String.format("%040d", i))));
+        }
+        assertEquals(3, journal.segmentCount());
+        assertFalse(journal.append(record(String.format("%040d", 6))));
+
+        SpoolJournal.Batch batch = journal.read(3);
+        journal.acknowledge(batch);
+        assertEquals(2, journal.segmentCount());
+        assertEquals(2, segments().size());
+
+        journal.acknowledge(journal.read(10));
+        assertEquals(0, journal.depth());
+        assertEquals(0, journal.bytes());
+        assertTrue(segments().isEmpty());
+        assertTrue(journal.append(record("next")));
+    }
+
+    @Test
+    void testOpen_ShouldResumeAfterTheCheckpoint() throws IOException {
+        SpoolJournal journal = new SpoolJournal(directory, 1024, 4);
+        journal.open();
+        for (String text : List.of("a", "b", "c")) {
+            journal.append(record(text));
+        }
+        journal.acknowledge(journal.read(1));
+        journal.close();
+
+        SpoolJournal recovered = new SpoolJournal(directory, 1024, 4);
+        recovered.open();
+
+        assertEquals(2, recovered.depth());
+        assertEquals(List.of("b", "c"), texts(recovered.read(10)));
+        recovered.append(record("d"));
+        assertEquals(List.of("b", "c", "d"), texts(recovered.read(10)));
+    }
+
+    @Test
+    void testOpen_WhenLastRecordIsTorn_ShouldDropItAndAppendAfterTheIntactOnes() throws IOException {
+        SpoolJournal journal = new SpoolJournal(directory, 1024, 4);
+        journal.open();
+        journal.append(record("intact"));
+        journal.append(record("torn"));
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            // flip a payload byte of the second record
+            file.seek(SpoolJournal.RECORD_HEADER + 6 + SpoolJournal.RECORD_HEADER);
+            file.write('x');
+        }
+
+        SpoolJournal recovered = new SpoolJournal(directory, 1024, 4);
+        recovered.open();
+        assertEquals(1, recovered.depth());
+        recovered.append(record("after"));
+        recovered.close();
+
+        SpoolJournal reopened = new SpoolJournal(directory, 1024, 4);
+        reopened.open();
+        assertEquals(List.of("intact", "after"), texts(reopened.read(10)));
+    }
+}
@@ -0,0 +1,32 @@
+package com.ms.user.support;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+/**
+ * Converts and "sends" like the real template, but records each message in a
+ * {@link RoundTripCounter} instead of talking to a broker.
+ */
+public class CountingRabbitTemplate extends RabbitTemplate {
+
+    private final RoundTripCounter counter;
+
+    public CountingRabbitTemplate(ConnectionFactory connectionFactory, RoundTripCounter counter){
+        super(connectionFactory);
+        this.counter = counter;
+    }
+
+    @Override
+    public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) throws AmqpException {
+        counter.publish((exchange == null ? getExchange() : exchange) + "/" + (routingKey == null ? getRoutingKey() : routingKey));
+    }
+
+    @Override
+    public <T> T invoke(OperationsCallback<T> action, com.rabbitmq.client.ConfirmCallback acks,
+                        com.rabbitmq.client.ConfirmCallback nacks){
+        return action.doInRabbit(this);
+    }
+}